@@ -1,19 +1,23 @@
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import com.example.sanctions.util.MappedCsv;
 import net.openhft.chronicle.map.*;
 
 public class BlocklistChronicleBuilder {
 
     public static void main(String[] args) throws IOException {
         if (args.length < 2) {
-            System.out.println("Usage: java -cp chronicle-map-3.25ea19.jar;. BlocklistChronicleBuilder <input.csv> <output.dat>");
+            System.out.println("Usage: java -cp chronicle-map-3.25ea19.jar;. BlocklistChronicleBuilder <input.csv> <output.dat> [--mapped]");
             return;
         }
         String input = args[0];
         String output = args[1];
-        buildChronicleFromCSV(input, output);
+        if (args.length > 2 && args[2].equals("--mapped")) buildMapped(input, output);
+        else buildChronicleFromCSV(input, output);
     }
 
     public static void buildChronicleFromCSV(String csvPath, String datPath) throws IOException {
@@ -29,7 +33,6 @@ public class BlocklistChronicleBuilder {
         try (ChronicleMap<String, Boolean> map = ChronicleMap
                 .of(String.class, Boolean.class)
                 .averageKey("AVERAGE_SAMPLE")
-                .averageValue(Boolean.TRUE)
                 .entries(estimatedEntries)
                 .createPersistedTo(datFile);
              BufferedReader reader = Files.newBufferedReader(Paths.get(csvPath), StandardCharsets.UTF_8)) {
@@ -48,4 +51,108 @@ public class BlocklistChronicleBuilder {
                     count, (System.nanoTime() - start) / 1_000_000_000.0);
         }
     }
+
+    /**
+     * Same keys as buildChronicleFromCSV, for very large inputs: the CSV is memory-mapped and
+     * pre-scanned in parallel to count rows and measure key sizes, so the map is created with
+     * exact entries and average key size (no guessed sizing, no bloat expansion), then
+     * populated from newline-aligned chunks on all cores.
+     */
+    public static void buildMapped(String csvPath, String datPath) throws IOException {
+        long start = System.nanoTime();
+        File datFile = new File(datPath);
+        if (datFile.exists()) datFile.delete();
+        int threads = Integer.getInteger("sanctions.load.threads", Runtime.getRuntime().availableProcessors());
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (FileChannel ch = FileChannel.open(Paths.get(csvPath), StandardOpenOption.READ)) {
+            long bytes = ch.size();
+            long[] bounds = MappedCsv.chunks(ch, Math.max(64 << 10, Math.min(32 << 20, bytes / (threads * 4L))));
+
+            // pass 1: rows and total key bytes per chunk
+            List<Callable<long[]>> scans = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i], to = bounds[i + 1];
+                scans.add(() -> {
+                    long[] stats = new long[2];
+                    MappedCsv.forEachLine(ch, from, to, (buf, off, len) -> {
+                        long k = keyRange(buf, off, len);
+                        if (k < 0) return;
+                        stats[0]++;
+                        stats[1] += (int) k;
+                    });
+                    return stats;
+                });
+            }
+            long rows = 0, keyBytes = 0;
+            for (long[] st : invokeAll(pool, scans)) {
+                rows += st[0];
+                keyBytes += st[1];
+            }
+            double scanSecs = (System.nanoTime() - start) / 1e9;
+            if (rows == 0) throw new IOException("no records in " + csvPath);
+            // serialized key: UTF-8 bytes plus a 1-2 byte length prefix
+            double avgKey = (double) keyBytes / rows + 1;
+            System.out.printf("Pre-scan: %,d rows, avg key %.1f bytes, %.2f s (%.1f MB/s)%n",
+                    rows, avgKey - 1, scanSecs, bytes / 1e6 / scanSecs);
+
+            // pass 2: exactly sized map, filled from all chunks in parallel
+            long buildStart = System.nanoTime();
+            try (ChronicleMap<String, Boolean> map = ChronicleMap
+                    .of(String.class, Boolean.class)
+                    .averageKeySize(avgKey)
+                    .entries(rows)
+                    .createPersistedTo(datFile)) {
+                List<Callable<long[]>> fills = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long from = bounds[i], to = bounds[i + 1];
+                    fills.add(() -> {
+                        MappedCsv.forEachLine(ch, from, to, (buf, off, len) -> {
+                            long k = keyRange(buf, off, len);
+                            if (k < 0) return;
+                            int keyOff = (int) (k >>> 32), keyLen = (int) k;
+                            map.put(new String(buf, keyOff, keyLen, StandardCharsets.UTF_8).toUpperCase(), Boolean.TRUE);
+                        });
+                        return null;
+                    });
+                }
+                invokeAll(pool, fills);
+                double buildSecs = (System.nanoTime() - buildStart) / 1e9;
+                double totalSecs = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Built %,d entries (%d%% free, %d resizes left) in %.2f s: %.1f MB/s, %,.0f rows/s; total %.2f s%n",
+                        map.size(), map.percentageFreeSpace(), map.remainingAutoResizes(), buildSecs,
+                        bytes / 1e6 / buildSecs, rows / buildSecs, totalSecs);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // key of a line as (offset << 32 | length): the trimmed field after the first comma, or the
+    // trimmed line without one; -1 for blank lines
+    private static long keyRange(byte[] buf, int off, int len) {
+        int s = off, e = off + len;
+        while (s < e && (buf[s] & 0xFF) <= ' ') s++;
+        while (e > s && (buf[e - 1] & 0xFF) <= ' ') e--;
+        if (s == e) return -1;
+        int comma = MappedCsv.indexOf(buf, s, e - s, (byte) ',');
+        if (comma >= 0) {
+            s = comma + 1;
+            while (s < e && (buf[s] & 0xFF) <= ' ') s++;
+        }
+        return (long) s << 32 | (e - s);
+    }
+
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) throws IOException {
+        List<T> out = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> f : pool.invokeAll(tasks)) out.add(f.get());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("build interrupted");
+        }
+        return out;
+    }
 }
@@ -1,12 +1,19 @@
+import com.example.sanctions.engine.ScreeningEngine;
+import com.example.sanctions.engine.Stages;
+import com.example.sanctions.store.ChronicleMapLookup;
+import com.example.sanctions.util.DataLoader;
+
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.*;
 /**
  * multi-threaded bulk testing harness that simulates millions of queries and measures average latency per lookup while keeping your hybrid fuzzy screening intact. This will validate whether your system truly handles <10 ms per query at scale.
  *
- * We’ll build this as a standalone class using the previously created DynamicNameScreener.
+ * Screens through the same ScreeningEngine cascade as the HTTP server and the JMH suite, then
+ * runs the same names through NameScreener and CoreNameScreener via their engine adapters.
  * Advantages
  *
  * True sub-10 ms per query even at millions/billions of records.
@@ -24,25 +31,43 @@ public class BulkNameScreeningTest {
 
     public static void main(String[] args) throws Exception {
         Scanner sc = new Scanner(System.in);
-        System.out.print("Enter path to ChronicleMap .dat file: ");
-        String datFile = sc.nextLine().trim();
+        System.out.print("Enter path to blocklist CSV file: ");
+        String csvFile = sc.nextLine().trim();
         sc.close();
 
-        System.out.println("Loading ChronicleMap and building phonetic map...");
-        DynamicNameScreener screener = new DynamicNameScreener();
+        System.out.println("Loading blocklist into ChronicleMap and building indexes...");
+        File datFile = File.createTempFile("bulk-screening", ".dat");
+        datFile.delete();
+        datFile.deleteOnExit();
+        ChronicleMapLookup store = new ChronicleMapLookup(datFile, 5_000_000L);
+        DataLoader loader = new DataLoader(store, 5_000_000);
         long loadStart = System.nanoTime();
-        screener.loadFromChronicleMap(datFile);
+        loader.loadCsv(new File(csvFile));
+        ScreeningEngine engine = Stages.standardEngine(store, loader, 2, 2048, false);
         long loadEnd = System.nanoTime();
         System.out.printf("✅ Loaded in %.3f s%n", (loadEnd - loadStart) / 1_000_000_000.0);
 
         // --- Generate bulk random test names ---
         System.out.println("Generating test dataset...");
-        List<String> testNames = generateTestNames(screener, QUERY_COUNT);
+        List<String> testNames = generateTestNames(loader, QUERY_COUNT);
+
+        // --- The same names through each screener's engine ---
+        bench("standard cascade", engine, testNames);
+        store.close();
+        NameScreener nameScreener = new NameScreener();
+        nameScreener.loadBlocklist(csvFile);
+        bench("NameScreener", nameScreener.engine(), testNames);
+        CoreNameScreener coreScreener = new CoreNameScreener();
+        coreScreener.loadBlocklist(csvFile);
+        bench("CoreNameScreener", coreScreener.engine(), testNames);
+    }
 
-        // --- Multi-threaded bulk screening ---
-        System.out.println("Starting multi-threaded bulk screening using " + THREAD_COUNT + " threads...");
+    // --- Multi-threaded bulk screening ---
+    private static void bench(String label, ScreeningEngine engine, List<String> testNames) throws Exception {
+        System.out.println("Screening through " + label + " using " + THREAD_COUNT + " threads...");
         ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
         List<Future<Long>> futures = new ArrayList<>();
+        AtomicLong hits = new AtomicLong();
 
         int batchSize = QUERY_COUNT / THREAD_COUNT;
         long bulkStart = System.nanoTime();
@@ -56,7 +81,7 @@ public class BulkNameScreeningTest {
                 long localTotalNano = 0;
                 for (String name : batch) {
                     long startNano = System.nanoTime();
-                    screener.screenNameHybridFuzzy(name);
+                    if (engine.screen(name) != null) hits.incrementAndGet();
                     long endNano = System.nanoTime();
                     localTotalNano += (endNano - startNano);
                 }
@@ -73,15 +98,15 @@ public class BulkNameScreeningTest {
         double avgLatencyMs = (totalNano / (double) QUERY_COUNT) / 1_000_000.0;
         double totalTimeSec = (bulkEnd - bulkStart) / 1_000_000_000.0;
 
-        System.out.printf("✅ Bulk screening completed: %d queries%n", QUERY_COUNT);
+        System.out.printf("✅ %s: %d queries, %d matched%n", label, QUERY_COUNT, hits.get());
         System.out.printf("Average latency per query: %.6f ms%n", avgLatencyMs);
         System.out.printf("Total bulk screening time: %.3f s%n", totalTimeSec);
     }
 
     // --- Helper: Generate mixed test names (existing + random) ---
-    private static List<String> generateTestNames(DynamicNameScreener screener, int count) {
+    private static List<String> generateTestNames(DataLoader loader, int count) {
         List<String> allBlocked = new ArrayList<>();
-        screener.blockListPhoneticMap.values().forEach(allBlocked::addAll);
+        for (int id = 0; id < loader.size(); id++) allBlocked.add(loader.name(id));
 
         Random random = new Random();
         List<String> testNames = new ArrayList<>(count);
@@ -3,11 +3,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
+import com.example.sanctions.engine.CascadeEngine;
+import com.example.sanctions.engine.ScreeningEngine;
+import com.example.sanctions.engine.Stages;
+import com.example.sanctions.util.JaroWinkler;
 
 public class CoreNameScreener {
 
     private static final double FUZZY_THRESHOLD = 0.88;
-    private final Map<String, Set<String>> phoneticMap = new HashMap<>();
+    // phonetic code -> blocked name as in the file -> its upper-cased form, which screen() compares
+    private final Map<String, Map<String, String>> phoneticMap = new HashMap<>();
 
     // ------------------- PHONETIC ENCODING -------------------
     private String getPhoneticCode(String name) {
@@ -16,25 +21,13 @@ public class CoreNameScreener {
         return clean.length() > 8 ? clean.substring(0, 8) : clean;
     }
 
-    // ------------------- FAST FUZZY MATCH -------------------
-    private double fastFuzzySimilarity(String s1, String s2) {
-        s1 = s1.toUpperCase();
-        s2 = s2.toUpperCase();
-        if (s1.equals(s2)) return 1.0;
-        int prefix = Math.min(5, Math.min(s1.length(), s2.length()));
-        int matches = 0;
-        for (int i = 0; i < prefix; i++) if (s1.charAt(i) == s2.charAt(i)) matches++;
-        double score = (double) matches / prefix;
-        if (Math.abs(s1.length() - s2.length()) < 3) score += 0.1;
-        return Math.min(score, 1.0);
-    }
-
     // ------------------- BLOCKLIST LOADING -------------------
     public void loadBlocklist(String filePath) throws IOException {
         List<String> lines = Files.readAllLines(Path.of(filePath));
         for (String name : lines) {
-            String code = getPhoneticCode(name);
-            phoneticMap.computeIfAbsent(code, k -> new HashSet<>()).add(name);
+            // upper-cased once here so screening compares without per-candidate copies
+            String upper = name.trim().toUpperCase();
+            phoneticMap.computeIfAbsent(getPhoneticCode(upper), k -> new HashMap<>()).put(name, upper);
         }
         System.out.printf("Loaded %d names into phonetic map%n", lines.size());
     }
@@ -43,22 +36,35 @@ public class CoreNameScreener {
     public MatchResult screen(String name) {
         String normalized = name.trim().toUpperCase();
         String code = getPhoneticCode(normalized);
-        Set<String> candidates = phoneticMap.getOrDefault(code, Collections.emptySet());
+        Map<String, String> candidates = phoneticMap.getOrDefault(code, Collections.emptyMap());
         if (candidates.isEmpty()) return null;
 
         MatchResult best = null;
         double maxSim = 0.0;
-        for (String blocked : candidates) {
-            double sim = fastFuzzySimilarity(normalized, blocked);
+        for (Map.Entry<String, String> blocked : candidates.entrySet()) {
+            double sim = JaroWinkler.similarity(normalized, blocked.getValue(), Math.max(FUZZY_THRESHOLD, maxSim));
             if (sim > maxSim) {
                 maxSim = sim;
-                best = new MatchResult(blocked, sim);
+                best = new MatchResult(blocked.getKey(), sim);
             }
         }
         if (best != null && best.similarity >= FUZZY_THRESHOLD) return best;
         return null;
     }
 
+    // ------------------- ENGINE ADAPTER -------------------
+    /**
+     * This screener as a one-stage CascadeEngine (see Stages.of), so it is driven on the same
+     * terms as the standard cascade. The result is the blocked name (this screener keeps no
+     * cultures), or null.
+     */
+    public ScreeningEngine engine() {
+        return new CascadeEngine(List.of(Stages.of("core", name -> {
+            MatchResult r = screen(name);
+            return r == null ? null : r.blockedName;
+        })));
+    }
+
     public static class MatchResult {
         public final String blockedName;
         public final double similarity;
@@ -74,7 +80,7 @@ public class CoreNameScreener {
         Random random = new Random();
         List<String> testNames = new ArrayList<>();
         List<String> blockedNames = new ArrayList<>();
-        phoneticMap.values().forEach(blockedNames::addAll);
+        phoneticMap.values().forEach(m -> blockedNames.addAll(m.keySet()));
 
         for (int i = 0; i < count; i++) {
             if (i % 10 == 0 && !blockedNames.isEmpty()) {
@@ -86,6 +92,7 @@ public class CoreNameScreener {
             }
         }
 
+        ScreeningEngine engine = engine();
         ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
         List<Future<Long>> futures = new ArrayList<>();
         int batchSize = count / Runtime.getRuntime().availableProcessors();
@@ -101,7 +108,7 @@ public class CoreNameScreener {
                 long localNano = 0;
                 for (String name : batch) {
                     long s = System.nanoTime();
-                    screen(name);
+                    engine.screen(name);
                     long e = System.nanoTime();
                     localNano += (e - s);
                 }
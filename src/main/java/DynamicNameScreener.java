@@ -237,11 +237,16 @@ import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import net.openhft.chronicle.map.*;
+import com.example.sanctions.engine.CascadeEngine;
+import com.example.sanctions.engine.ScreeningEngine;
+import com.example.sanctions.engine.Stages;
+import com.example.sanctions.util.JaroWinkler;
 
 public class DynamicNameScreener {
 
     private static final double FUZZY_MATCH_THRESHOLD = 0.88;
-    public final Map<String, Set<String>> blockListPhoneticMap = new ConcurrentHashMap<>();
+    // phonetic code -> blocked name as stored -> its upper-cased form, which screening compares
+    public final Map<String, Map<String, String>> blockListPhoneticMap = new ConcurrentHashMap<>();
 
     public static void main(String[] args) {
         DynamicNameScreener screener = new DynamicNameScreener();
@@ -301,8 +306,10 @@ public class DynamicNameScreener {
 
     // ---------- Helper Logic ----------
     private void addToPhoneticMap(String name) {
-        String code = getPhoneticCode(name);
-        blockListPhoneticMap.computeIfAbsent(code, k -> new HashSet<>()).add(name);
+        // upper-cased once here so screening compares without per-candidate copies
+        String upper = name.toUpperCase();
+        String code = getPhoneticCode(upper);
+        blockListPhoneticMap.computeIfAbsent(code, k -> new HashMap<>()).put(name, upper);
     }
 
     private String getPhoneticCode(String name) {
@@ -310,30 +317,30 @@ public class DynamicNameScreener {
         return clean.length() > 8 ? clean.substring(0, 8) : clean;
     }
 
-    private double calculateJaroWinklerSimilarity(String s1, String s2) {
-        int maxLen = Math.max(s1.length(), s2.length());
-        if (maxLen == 0) return 1.0;
-        int matches = 0;
-        for (int i = 0; i < Math.min(s1.length(), s2.length()); i++)
-            if (s1.charAt(i) == s2.charAt(i)) matches++;
-        return (double) matches / maxLen + (matches > maxLen * 0.5 ? 0.2 : 0);
-    }
-
     public MatchResult screenNameHybridFuzzy(String name) {
         String normalized = name.trim().toUpperCase();
         String inputCode = getPhoneticCode(normalized);
-        Set<String> candidateSet = blockListPhoneticMap.getOrDefault(inputCode, Collections.emptySet());
+        Map<String, String> candidateSet = blockListPhoneticMap.getOrDefault(inputCode, Collections.emptyMap());
         if (candidateSet.isEmpty()) return null;
 
         MatchResult best = null;
         double max = 0;
-        for (String blocked : candidateSet) {
-            double sim = calculateJaroWinklerSimilarity(normalized, blocked.toUpperCase());
-            if (sim > max) { max = sim; best = new MatchResult(blocked, sim); }
+        for (Map.Entry<String, String> blocked : candidateSet.entrySet()) {
+            double sim = JaroWinkler.similarity(normalized, blocked.getValue(), Math.max(FUZZY_MATCH_THRESHOLD, max));
+            if (sim > max) { max = sim; best = new MatchResult(blocked.getKey(), sim); }
         }
         return (best != null && best.similarityScore >= FUZZY_MATCH_THRESHOLD) ? best : null;
     }
 
+    // ---------- Engine Adapter ----------
+    /** screenNameHybridFuzzy as a one-stage engine, see CoreNameScreener.engine(). */
+    public ScreeningEngine engine() {
+        return new CascadeEngine(List.of(Stages.of("dynamic", name -> {
+            MatchResult r = screenNameHybridFuzzy(name);
+            return r == null ? null : r.blockedName;
+        })));
+    }
+
     private static class MatchResult {
         String blockedName;
         double similarityScore;
@@ -758,6 +758,10 @@ import java.io.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import com.example.sanctions.engine.CascadeEngine;
+import com.example.sanctions.engine.ScreeningEngine;
+import com.example.sanctions.engine.Stages;
+import com.example.sanctions.util.JaroWinkler;
 
 /**
  * NameScreener - Hybrid Phonetic + Fuzzy Matching for sub-5ms compliance screening.
@@ -811,16 +815,6 @@ public class NameScreener {
         return clean.length() > 8 ? clean.substring(0, 8) : clean;
     }
 
-    // ------------------- FUZZY MATCHING -------------------
-    private double calculateJaroWinklerSimilarity(String s1, String s2) {
-        int maxLen = Math.max(s1.length(), s2.length());
-        int matches = 0;
-        for (int i = 0; i < Math.min(s1.length(), s2.length()); i++) {
-            if (s1.charAt(i) == s2.charAt(i)) matches++;
-        }
-        return (double) matches / maxLen + (matches > maxLen * 0.5 ? 0.2 : 0);
-    }
-
     // ------------------- HYBRID SCREEN -------------------
     public MatchResult screenNameHybridFuzzy(String name) {
         String normalizedInput = name.trim().toUpperCase();
@@ -833,7 +827,9 @@ public class NameScreener {
         double maxSimilarity = 0.0;
 
         for (String blockedName : candidateSet) {
-            double similarity = calculateJaroWinklerSimilarity(normalizedInput, blockedName);
+            // scores below the best so far (or the threshold) come back as 0 without finishing
+            double similarity = JaroWinkler.similarity(normalizedInput, blockedName,
+                    Math.max(FUZZY_MATCH_THRESHOLD, maxSimilarity));
             if (similarity > maxSimilarity) {
                 maxSimilarity = similarity;
                 bestMatch = new MatchResult(blockedName, similarity);
@@ -844,6 +840,15 @@ public class NameScreener {
                 ? bestMatch : null;
     }
 
+    // ------------------- ENGINE ADAPTER -------------------
+    /** screenNameHybridFuzzy as a one-stage engine, see CoreNameScreener.engine(). */
+    public ScreeningEngine engine() {
+        return new CascadeEngine(List.of(Stages.of("namescreener", name -> {
+            MatchResult r = screenNameHybridFuzzy(name);
+            return r == null ? null : r.blockedName;
+        })));
+    }
+
     // ------------------- Match Result -------------------
     private static class MatchResult {
         String blockedName;
@@ -1,5 +1,7 @@
 package com.example.sanctions;
 
+import com.example.sanctions.store.ShardedChronicleStore;
+import com.example.sanctions.util.NormalizerUtil;
 import net.openhft.chronicle.map.ChronicleMap;
 
 import java.io.*;
@@ -7,7 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Main {
-    private static final int CHUNK_SIZE = 100_000; // number of entries per ChronicleMap
+    private static final int CHUNK_SIZE = 100_000; // target number of entries per ChronicleMap
 
     public static void main(String[] args) {
         String csvFile = "sample_data.csv";       // CSV input file
@@ -16,64 +18,70 @@ public class Main {
         File dir = new File(outputDir);
         if (!dir.exists()) dir.mkdirs();
 
-        List<String[]> csvChunk = new ArrayList<>();
+        // first pass sizes the parts; entries are then routed by key hash (not file position)
+        // so ShardedChronicleStore can find a key's part without scanning them all. Keys are
+        // normalized and values trimmed as DataLoader stores them, so lookups hash to the same part
         int maxKeyLength = 0;
         int maxValueLength = 0;
-        int fileIndex = 1;
         int totalEntries = 0;
-
         try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
             String line;
             while ((line = br.readLine()) != null) {
                 String[] parts = line.split(",", 2); // assuming CSV format: key,value
                 if (parts.length != 2) continue;
-
-                csvChunk.add(parts);
-                maxKeyLength = Math.max(maxKeyLength, parts[0].getBytes().length);
-                maxValueLength = Math.max(maxValueLength, parts[1].getBytes().length);
+                String key = NormalizerUtil.normalize(parts[0]);
+                if (key.isEmpty()) continue;
+                maxKeyLength = Math.max(maxKeyLength, key.getBytes().length);
+                maxValueLength = Math.max(maxValueLength, parts[1].trim().getBytes().length);
                 totalEntries++;
-
-                // When chunk reaches CHUNK_SIZE, save it to a ChronicleMap
-                if (csvChunk.size() >= CHUNK_SIZE) {
-                    createChronicleMap(csvChunk, maxKeyLength, maxValueLength, outputDir, fileIndex);
-                    fileIndex++;
-                    csvChunk.clear();
-                    maxKeyLength = 0;
-                    maxValueLength = 0;
-                }
             }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (totalEntries == 0) {
+            System.out.println("No CSV entries in " + csvFile);
+            return;
+        }
 
-            // Save remaining entries
-            if (!csvChunk.isEmpty()) {
-                createChronicleMap(csvChunk, maxKeyLength, maxValueLength, outputDir, fileIndex);
+        int shards = (totalEntries + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        // hash routing spreads entries unevenly by a few standard deviations at most
+        long perShard = totalEntries / shards + 4 * (long) Math.sqrt(totalEntries / shards) + 16;
+        List<ChronicleMap<String, String>> maps = new ArrayList<>(shards);
+        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
+            for (int i = 0; i < shards; i++)
+                maps.add(createChronicleMap(perShard, maxKeyLength, maxValueLength, dir, i));
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",", 2);
+                if (parts.length != 2) continue;
+                String key = NormalizerUtil.normalize(parts[0]);
+                if (key.isEmpty()) continue;
+                maps.get(ShardedChronicleStore.shardOf(key, shards)).put(key, parts[1].trim());
             }
-
+            for (int i = 0; i < shards; i++)
+                System.out.println("Created ChronicleMap file: " + ShardedChronicleStore.partFile(dir, i)
+                        + " with " + maps.get(i).size() + " entries");
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            for (ChronicleMap<String, String> m : maps) m.close();
         }
 
-        System.out.println("Finished processing " + totalEntries + " CSV entries into ChronicleMaps.");
+        System.out.println("Finished processing " + totalEntries + " CSV entries into " + shards + " ChronicleMaps.");
     }
 
-    private static void createChronicleMap(List<String[]> data, int maxKeyLength, int maxValueLength,
-                                           String outputDir, int index) {
-        String fileName = outputDir + File.separator + "sample_data_part" + index + ".dat";
-        try (ChronicleMap<String, String> map = ChronicleMap
+    private static ChronicleMap<String, String> createChronicleMap(long entries, int maxKeyLength, int maxValueLength,
+                                                                   File dir, int shard) throws IOException {
+        File file = ShardedChronicleStore.partFile(dir, shard);
+        if (file.exists()) file.delete();
+        return ChronicleMap
                 .of(String.class, String.class)
-                .name("sample-map-" + index)
-                .entries(data.size())
-                .averageKeySize(maxKeyLength)
-                .averageValueSize(maxValueLength)
+                .name("sample-map-" + (shard + 1))
+                .entries(entries)
+                .averageKeySize(Math.max(1, maxKeyLength))
+                .averageValueSize(Math.max(1, maxValueLength))
                 .maxBloatFactor(4.0)
-                .createPersistedTo(new File(fileName))) {
-
-            for (String[] parts : data) {
-                map.put(parts[0], parts[1]);
-            }
-            System.out.println("Created ChronicleMap file: " + fileName + " with " + data.size() + " entries");
-        } catch (IOException e) {
-            System.err.println("Error creating ChronicleMap file: " + fileName);
-            e.printStackTrace();
-        }
+                .createPersistedTo(file);
     }
 }
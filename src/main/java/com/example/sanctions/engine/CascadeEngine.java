@@ -0,0 +1,72 @@
+package com.example.sanctions.engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs its stages cheapest first until one ends the cascade, then lets every stage that ran
+ * see the outcome (a cache stage stores it there). Immutable and thread safe as long as the
+ * stages are.
+ */
+public class CascadeEngine implements ScreeningEngine {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ScreeningStage[] stages;
+
+    public CascadeEngine(List<? extends ScreeningStage> stages) {
+        List<ScreeningStage> sorted = new ArrayList<>(stages);
+        sorted.sort(Comparator.comparingInt(ScreeningStage::cost));   // stable
+        if (sorted.size() > 64) throw new IllegalArgumentException("at most 64 stages: " + sorted.size());
+        this.stages = sorted.toArray(new ScreeningStage[0]);
+    }
+
+    @Override
+    public Screening screen(String name, boolean explain, ScreeningListener listener) {
+        Screening s = new Screening(name == null ? "" : name, explain);
+        boolean timed = listener != null || explain;
+        long start = timed ? System.nanoTime() : 0, t = start;
+        long allocStart = explain ? allocatedBytes() : -1;
+        long ran = 0;     // bit i: stages[i] was applied
+        for (int i = 0; i < stages.length; i++) {
+            ScreeningStage stage = stages[i];
+            if (!stage.applies(s)) continue;
+            ran |= 1L << i;
+            boolean done = stage.apply(s);
+            if (timed) {
+                long now = System.nanoTime();
+                if (listener != null) listener.stage(i, stage, now - t);
+                if (explain) s.ran(stage, now - t);
+                t = now;
+            }
+            if (done) {
+                s.decidedBy(stage);
+                break;
+            }
+        }
+        if (timed) s.elapsed(t - start);
+        // before complete(): explain's extra counting there is not the lookup's allocation
+        if (allocStart >= 0) s.allocated(allocatedBytes() - allocStart);
+        for (int i = 0; ran != 0; i++, ran >>>= 1) if ((ran & 1) != 0) stages[i].complete(s);
+        return s;
+    }
+
+    // this thread's allocation so far, or -1 where the JVM does not count it
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) THREADS;
+            if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled())
+                return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /** Stage labels in the order they run. */
+    public List<String> stageNames() {
+        List<String> out = new ArrayList<>(stages.length);
+        for (ScreeningStage s : stages) out.add(s.name());
+        return out;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.sanctions.engine;
+
+import com.example.sanctions.util.ScanStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * State of one name going through a cascade: what the stages found out so far, what ended it,
+ * and with explain on, the path taken and what each fuzzy stage's scan did.
+ */
+public final class Screening {
+    private final String name;
+    private final boolean explain;
+    private String normalized = "";
+    private boolean bloom = true;
+    private String candidateSource;
+    private List<String> phoneticCodes;
+    private int bucketSize = -1;
+    private int unionSize = -1;
+    private int postingsRead;
+    private boolean deferred;
+    private String result;
+    private ScreeningStage decidedBy;
+    private long elapsed = -1;
+    private long allocated = -1;
+    private List<ScreeningStage> path;
+    private List<Long> nanos;
+    private List<String> scanStages;
+    private List<int[]> scans;
+
+    Screening(String name, boolean explain) {
+        this.name = name;
+        this.explain = explain;
+    }
+
+    public String name() { return name; }
+
+    public boolean explain() { return explain; }
+
+    public String normalized() { return normalized; }
+
+    public void normalized(String normalized) { this.normalized = normalized; }
+
+    /** False once the bloom filter has ruled out an exact hit. */
+    public boolean bloom() { return bloom; }
+
+    public void bloom(boolean mightContain) { this.bloom = mightContain; }
+
+    /** Records the candidate set the bucket stage used; codes is null for non-phonetic sources. */
+    public void candidates(String source, List<String> codes, int postingsRead, int size) {
+        this.candidateSource = source;
+        this.phoneticCodes = codes;
+        this.postingsRead = postingsRead;
+        this.bucketSize = size;
+    }
+
+    public String candidateSource() { return candidateSource; }
+
+    public List<String> phoneticCodes() { return phoneticCodes; }
+
+    /**
+     * Candidates in the bucket, or -1 if no bucket was built. For phonetic buckets these are the
+     * postings across the codes, an id under two codes counted twice; see unionSize().
+     */
+    public int bucketSize() { return bucketSize; }
+
+    /** Distinct ids across the phonetic buckets, counted only with explain on; else -1. */
+    public int unionSize() { return unionSize; }
+
+    public void unionSize(int size) { this.unionSize = size; }
+
+    public int postingsRead() { return postingsRead; }
+
+    /** The bucket was empty or too big to scan and was left to a bounded-cost index. */
+    public boolean deferred() { return deferred; }
+
+    public void defer() { this.deferred = true; }
+
+    public void match(String result) { this.result = result; }
+
+    public String result() { return result; }
+
+    /** The stage that ended the cascade, or null if every stage ran. */
+    public ScreeningStage decidedBy() { return decidedBy; }
+
+    /** What a fuzzy stage's closest() counted while it ran. Explain only. */
+    public void scan(String stage, ScanStats scan) {
+        if (!explain) return;
+        if (scans == null) { scanStages = new ArrayList<>(); scans = new ArrayList<>(); }
+        scanStages.add(stage);
+        scans.add(new int[]{scan.candidates(), scan.pruned(), scan.scored()});
+    }
+
+    public List<String> scanStages() { return scanStages == null ? Collections.emptyList() : scanStages; }
+
+    /** {candidates, pruned by a bound, scored} per scan. */
+    public List<int[]> scans() { return scans == null ? Collections.emptyList() : scans; }
+
+    /** Time from the first stage to the end of the last one, or -1 if the cascade was not timed. */
+    public long elapsedNanos() { return elapsed; }
+
+    /** Bytes allocated by the stages of an explained screening, or -1; complete() hooks excluded. */
+    public long allocatedBytes() { return allocated; }
+
+    public List<ScreeningStage> path() { return path == null ? Collections.emptyList() : path; }
+
+    public List<Long> pathNanos() { return nanos == null ? Collections.emptyList() : nanos; }
+
+    void ran(ScreeningStage stage, long elapsed) {
+        if (path == null) { path = new ArrayList<>(); nanos = new ArrayList<>(); }
+        path.add(stage);
+        nanos.add(elapsed);
+    }
+
+    void decidedBy(ScreeningStage stage) { this.decidedBy = stage; }
+
+    void elapsed(long nanos) { this.elapsed = nanos; }
+
+    void allocated(long bytes) { this.allocated = bytes; }
+}
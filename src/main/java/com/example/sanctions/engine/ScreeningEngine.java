@@ -0,0 +1,18 @@
+package com.example.sanctions.engine;
+
+/**
+ * Screens raw names against a loaded blocklist. The HTTP server, the bulk harnesses and the JMH
+ * benchmarks all go through this, so each measures the same production path.
+ */
+public interface ScreeningEngine {
+    /** Culture of the match for a raw name, or null. */
+    default String screen(String name) {
+        return screen(name, false, null).result();
+    }
+
+    /**
+     * Screens a raw name. listener, if not null, is told each stage's time; explain makes the
+     * stages record their path and scan counts in the returned Screening.
+     */
+    Screening screen(String name, boolean explain, ScreeningListener listener);
+}
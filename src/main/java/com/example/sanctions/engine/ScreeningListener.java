@@ -0,0 +1,7 @@
+package com.example.sanctions.engine;
+
+/** Observes a cascade as it runs; called on the screening thread, so it must be cheap. */
+public interface ScreeningListener {
+    /** stage, at position in the engine's run order (see CascadeEngine#stageNames), took nanos. */
+    void stage(int position, ScreeningStage stage, long nanos);
+}
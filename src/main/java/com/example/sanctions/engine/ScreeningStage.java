@@ -0,0 +1,22 @@
+package com.example.sanctions.engine;
+
+/**
+ * One step of a CascadeEngine. Stages run in order of declared cost, cheapest first, and any of
+ * them can end the cascade: with a match, or with a definite answer of no match.
+ */
+public interface ScreeningStage {
+    /** Short label for metrics and explain output, e.g. "exact". */
+    String name();
+
+    /** Rough relative cost of one call; equal costs keep their registration order. */
+    int cost();
+
+    /** False to skip this stage for s without timing it, e.g. exact after a bloom reject. */
+    default boolean applies(Screening s) { return true; }
+
+    /** Screens s; returns true to end the cascade, after s.match(..) for a hit. */
+    boolean apply(Screening s);
+
+    /** Called on every stage that ran, after the cascade has ended. */
+    default void complete(Screening s) {}
+}
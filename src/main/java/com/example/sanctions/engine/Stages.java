@@ -0,0 +1,245 @@
+package com.example.sanctions.engine;
+
+import com.example.sanctions.store.NameStore;
+import com.example.sanctions.util.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The standard cascade over a NameStore and the DataLoader indexes built for it. Costs are
+ * rough nanoseconds per call at a few million names, so stages added next to these (a result
+ * cache, a rule list) can be slotted in by cost. With explain on, the fuzzy stages record what
+ * their scan pruned and scored as it ran; counting is skipped otherwise.
+ */
+public final class Stages {
+    public static final int NORMALIZE = 0;
+    public static final int BLOOM = 5;
+    public static final int EXACT = 200;
+    public static final int ALIAS = 250;
+    public static final int BUCKET = 2_000;
+    public static final int QGRAM = 5_000;
+    public static final int TOKEN = 20_000;
+    public static final int DELETION = 50_000;
+
+    private Stages() {}
+
+    /**
+     * normalize, bloom, exact, alias, then the fuzzy stages the loader has indexes for: the
+     * phonetic (or minhash) bucket, the q-gram index when the bucket is empty or larger than
+     * maxBucket, the token index and the deletion index. Bucket matches are within maxEdits; a
+     * negative maxEdits makes any entry of the buckets a match (phonetic code equality alone),
+     * the rule before the edit bound, which flags most clean names on a dense list.
+     */
+    public static List<ScreeningStage> standard(NameStore store, DataLoader loader, int maxEdits, int maxBucket,
+                                                boolean minHash) {
+        List<ScreeningStage> stages = new ArrayList<>();
+        stages.add(normalize());
+        stages.add(bloom(loader));
+        stages.add(exact(store));
+        stages.add(alias(store, loader));
+        stages.add(new Bucket(store, loader, maxEdits, loader.qgramIndex() != null ? maxBucket : Integer.MAX_VALUE, minHash));
+        if (loader.qgramIndex() != null) stages.add(new Indexed("qgram", QGRAM, store, loader, loader.qgramIndex(), true));
+        if (loader.tokenIndex() != null) stages.add(token(store, loader));
+        if (loader.deletionIndex() != null) stages.add(new Indexed("deletion", DELETION, store, loader, loader.deletionIndex(), false));
+        return stages;
+    }
+
+    public static CascadeEngine standardEngine(NameStore store, DataLoader loader, int maxEdits, int maxBucket,
+                                               boolean minHash) {
+        return new CascadeEngine(standard(store, loader, maxEdits, maxBucket, minHash));
+    }
+
+    /** Normalizes the name; an empty result ends the cascade. */
+    public static ScreeningStage normalize() {
+        return new Named("normalize", NORMALIZE) {
+            @Override
+            public boolean apply(Screening s) {
+                s.normalized(NormalizerUtil.normalize(s.name()));
+                return s.normalized().isEmpty();
+            }
+        };
+    }
+
+    /** Records whether the bloom filter could hold the name; never ends the cascade. */
+    public static ScreeningStage bloom(DataLoader loader) {
+        return new Named("bloom", BLOOM) {
+            @Override
+            public boolean apply(Screening s) {
+                s.bloom(loader.bloom().mightContain(s.normalized()));
+                return false;
+            }
+        };
+    }
+
+    /** Exact store hit, skipped after a bloom reject. */
+    public static ScreeningStage exact(NameStore store) {
+        return new Named("exact", EXACT) {
+            @Override
+            public boolean applies(Screening s) { return s.bloom(); }
+
+            @Override
+            public boolean apply(Screening s) {
+                s.match(store.get(s.normalized()));
+                return s.result() != null;
+            }
+        };
+    }
+
+    public static ScreeningStage alias(NameStore store, DataLoader loader) {
+        return new Named("alias", ALIAS) {
+            @Override
+            public boolean apply(Screening s) {
+                Optional<String> a = loader.lookupAlias(s.normalized());
+                if (a.isPresent()) s.match(store.get(a.get()));
+                return s.result() != null;
+            }
+        };
+    }
+
+    /** Same tokens in any order, weighted by how rare they are. */
+    public static ScreeningStage token(NameStore store, DataLoader loader) {
+        TokenIndex tokens = loader.tokenIndex();
+        return new Named("token", TOKEN) {
+            @Override
+            public boolean apply(Screening s) {
+                ScanStats scan = s.explain() ? new ScanStats() : null;
+                int id = tokens.closest(s.normalized(), scan);
+                if (scan != null) s.scan(name(), scan);
+                if (id >= 0) s.match(store.get(loader.name(id)));
+                return s.result() != null;
+            }
+        };
+    }
+
+    /**
+     * A screen that decides every name on its own, such as a legacy screener's, as one stage at
+     * BUCKET cost: its answer (null for no match) is the result and ends the cascade.
+     */
+    public static ScreeningStage of(String name, Function<String, String> screen) {
+        return new Named(name, BUCKET) {
+            @Override
+            public boolean apply(Screening s) {
+                s.match(screen.apply(s.name()));
+                return true;
+            }
+        };
+    }
+
+    private abstract static class Named implements ScreeningStage {
+        private final String name;
+        private final int cost;
+
+        Named(String name, int cost) {
+            this.name = name;
+            this.cost = cost;
+        }
+
+        @Override
+        public String name() { return name; }
+
+        @Override
+        public int cost() { return cost; }
+
+        @Override
+        public String toString() { return name + "(" + cost + ")"; }
+    }
+
+    /**
+     * Closest name within maxEdits among the union of the phonetic buckets of every code of the
+     * name (or its minhash candidates). An empty bucket, or one whose postings exceed maxBucket,
+     * is deferred; the postings bound the union without reading it, and only explain counts the
+     * union itself. With Beider-Morse enabled, the other codes' buckets are scanned first.
+     */
+    private static final class Bucket extends Named {
+        private final NameStore store;
+        private final DataLoader loader;
+        private final int maxEdits;
+        private final int maxBucket;
+        private final boolean minHash;
+
+        Bucket(NameStore store, DataLoader loader, int maxEdits, int maxBucket, boolean minHash) {
+            super("bucket", BUCKET);
+            this.store = store;
+            this.loader = loader;
+            // no two normalized names are further apart than MAX_LENGTH edits
+            this.maxEdits = maxEdits < 0 ? NormalizerUtil.MAX_LENGTH : maxEdits;
+            this.maxBucket = maxBucket;
+            this.minHash = minHash;
+        }
+
+        @Override
+        public boolean apply(Screening s) {
+            String norm = s.normalized();
+            ScanStats scan = s.explain() ? new ScanStats() : null;
+            int id = -1;
+            if (minHash) {
+                IntList bucket = loader.minHashIds(norm);
+                s.candidates("minhash", null, bucket.size(), bucket.size());
+                if (scannable(bucket.size()))
+                    id = FuzzyMatcher.closest(FuzzyMatcher.prepare(norm), loader.names(), bucket, maxEdits, scan);
+            } else {
+                // Beider-Morse codes take ~1ms to encode, so they are only added when the quicker
+                // codes' buckets hold no match; a closer name only they reach loses to that match
+                if (loader.beiderMorse()) id = phoneticClosest(s, norm, loader.quickPhoneticCodes(norm), scan);
+                if (id < 0) id = phoneticClosest(s, norm, loader.phoneticCodes(norm), scan);
+            }
+            boolean defer = !scannable(s.bucketSize());
+            if (scan != null && (!defer || scan.candidates() > 0)) s.scan(name(), scan);
+            if (defer) {
+                s.defer();
+                return false;
+            }
+            if (id >= 0) s.match(store.get(loader.name(id)));
+            return s.result() != null;
+        }
+
+        // closest in the codes' buckets, or -1; bucket sizes only, as the scan visits just each
+        // bucket's length window
+        private int phoneticClosest(Screening s, String norm, List<String> codes, ScanStats scan) {
+            int postings = loader.phoneticPostings(codes);
+            s.candidates("phonetic", codes, postings, postings);
+            if (!scannable(postings)) return -1;
+            return loader.phoneticClosest(FuzzyMatcher.prepare(norm), codes, maxEdits, scan);
+        }
+
+        private boolean scannable(int bucketSize) {
+            return maxBucket == Integer.MAX_VALUE || bucketSize > 0 && bucketSize <= maxBucket;
+        }
+
+        @Override
+        public void complete(Screening s) {
+            if (s.explain() && !minHash) s.unionSize(loader.phoneticUnionSize(s.phoneticCodes()));
+        }
+    }
+
+    /** Closest name from a FuzzyIndex; deferredOnly runs it only in place of a bucket scan. */
+    private static final class Indexed extends Named {
+        private final NameStore store;
+        private final DataLoader loader;
+        private final FuzzyIndex index;
+        private final boolean deferredOnly;
+
+        Indexed(String name, int cost, NameStore store, DataLoader loader, FuzzyIndex index, boolean deferredOnly) {
+            super(name, cost);
+            this.store = store;
+            this.loader = loader;
+            this.index = index;
+            this.deferredOnly = deferredOnly;
+        }
+
+        @Override
+        public boolean applies(Screening s) { return !deferredOnly || s.deferred(); }
+
+        @Override
+        public boolean apply(Screening s) {
+            ScanStats scan = s.explain() ? new ScanStats() : null;
+            int id = index.closest(s.normalized(), scan);
+            if (scan != null) s.scan(name(), scan);
+            if (id >= 0) s.match(store.get(loader.name(id)));
+            return s.result() != null;
+        }
+    }
+}
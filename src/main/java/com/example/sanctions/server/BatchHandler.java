@@ -0,0 +1,157 @@
+package com.example.sanctions.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * POST /lookup/batch: one name per line, either raw text or an NDJSON object with a "name"
+ * field. Results stream back as chunked NDJSON in input order, one line per non-blank input
+ * line, "line" being its 1-based number in the input (blank lines count, but get no result):
+ * <pre>
+ *   {"line":1,"name":"JOHN SMITH","status":"FOUND","culture":"EN"}
+ * </pre>
+ * A name whose lookup throws gets an "error" field instead of a status. Input is screened a
+ * window at a time, so memory stays bounded by the window size whatever the batch size. The
+ * window's exact hits are read first in one batch where the store supports it (see Prefetch). Each
+ * window is split into chunks claimed by the request thread and by helper tasks on the server
+ * executor; the request thread keeps claiming until none are left, so the batch completes even
+ * when the pool has no idle threads.
+ */
+class BatchHandler implements HttpHandler {
+    private static final int CHUNK = 64;
+
+    private final Function<String, String> lookup;
+    private final Prefetch prefetch;
+    private final Executor executor;
+    private final int maxBatch;
+    private final int window;
+
+    /** Answers for a window of names read in one batch: null where a name needs lookup, or null. */
+    interface Prefetch {
+        String[] read(String[] names, int n) throws IOException;
+    }
+
+    BatchHandler(Function<String, String> lookup, Prefetch prefetch, Executor executor, int maxBatch, int window) {
+        this.lookup = lookup;
+        this.prefetch = prefetch;
+        this.executor = executor;
+        this.maxBatch = maxBatch;
+        this.window = window;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Allow", "POST");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);    // chunked
+            BufferedReader in = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+            String[] names = new String[window];
+            int[] lines = new int[window];
+            String[] results = new String[window];
+            String[] errors = new String[window];
+            StringBuilder sb = new StringBuilder(128);
+            int lineNo = 0, screened = 0;
+            boolean truncated = false;
+            while (true) {
+                int n = 0;
+                String line;
+                while (n < window && (line = in.readLine()) != null) {
+                    lineNo++;
+                    if (line.isBlank()) continue;
+                    if (screened + n >= maxBatch) { truncated = true; break; }
+                    lines[n] = lineNo;
+                    names[n] = parseName(line);
+                    n++;
+                }
+                if (n == 0) break;
+                screen(names, results, errors, n);
+                for (int i = 0; i < n; i++) {
+                    sb.setLength(0);
+                    sb.append("{\"line\":").append(lines[i]);
+                    if (names[i] == null) {
+                        sb.append(",\"error\":\"no name\"}\n");
+                    } else {
+                        Json.quote(sb.append(",\"name\":"), names[i]);
+                        // a name that failed to screen must never read as NOT_FOUND
+                        if (errors[i] != null) Json.quote(sb.append(",\"error\":"), errors[i]).append("}\n");
+                        else if (results[i] == null) sb.append(",\"status\":\"NOT_FOUND\"}\n");
+                        else Json.quote(sb.append(",\"status\":\"FOUND\",\"culture\":"), results[i]).append("}\n");
+                    }
+                    out.append(sb);
+                    names[i] = results[i] = errors[i] = null;
+                }
+                screened += n;
+                out.flush();
+                if (truncated) break;
+            }
+            if (truncated) out.write("{\"error\":\"batch exceeds " + maxBatch + " names\"}\n");
+            out.flush();
+        }
+    }
+
+    private static String parseName(String line) {
+        String s = line.strip();
+        return s.startsWith("{") ? Json.stringField(s, "name") : s;
+    }
+
+    private void screen(String[] names, String[] results, String[] errors, int n) throws IOException {
+        String[] read;
+        try {
+            read = prefetch.read(names, n);
+        } catch (IOException | RuntimeException e) {
+            read = null;    // every name goes through lookup instead
+        }
+        String[] known = read;
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int c; (c = next.getAndIncrement()) < chunks; ) {
+                int i = c * CHUNK, end = Math.min(n, i + CHUNK);
+                try {
+                    for (; i < end; i++) {
+                        try {
+                            results[i] = names[i] == null || names[i].isEmpty() ? null
+                                    : known != null && known[i] != null ? known[i] : lookup.apply(names[i]);
+                        } catch (RuntimeException e) {
+                            errors[i] = "screening failed: " + e;
+                        }
+                    }
+                } finally {
+                    // an Error ends the chunk early; the names it did not reach are failures too
+                    for (; i < end; i++) errors[i] = "not screened";
+                    synchronized (done) {
+                        done.incrementAndGet();
+                        done.notifyAll();
+                    }
+                }
+            }
+        };
+        int helpers = Math.min(chunks, Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < helpers; i++) executor.execute(worker);
+        worker.run();
+        // chunks still running were claimed by helpers that are already executing
+        synchronized (done) {
+            while (done.get() < chunks) {
+                try {
+                    done.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("batch interrupted");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.sanctions.server;
+
+import com.example.sanctions.engine.Screening;
+import com.example.sanctions.engine.ScreeningStage;
+import com.example.sanctions.engine.Stages;
+import com.example.sanctions.util.TinyLfuCache;
+
+import java.util.Optional;
+
+/**
+ * Result cache as a cascade stage: right after normalize, a cached answer (hit or miss) ends
+ * the cascade, and any other outcome is stored once it is known. Entries are stamped with the
+ * generation, so a reload invalidates them all; explain always runs the cascade.
+ */
+class CacheStage implements ScreeningStage {
+    private final TinyLfuCache<Optional<String>> cache;
+    private final long generation;
+
+    CacheStage(TinyLfuCache<Optional<String>> cache, long generation) {
+        this.cache = cache;
+        this.generation = generation;
+    }
+
+    @Override
+    public String name() { return "cache"; }
+
+    @Override
+    public int cost() { return Stages.NORMALIZE + 1; }
+
+    @Override
+    public boolean applies(Screening s) { return !s.explain(); }
+
+    @Override
+    public boolean apply(Screening s) {
+        Optional<String> cached = cache.get(s.normalized(), generation);
+        if (cached == null) return false;
+        s.match(cached.orElse(null));
+        return true;
+    }
+
+    @Override
+    public void complete(Screening s) {
+        if (s.decidedBy() != this) cache.put(s.normalized(), Optional.ofNullable(s.result()), generation);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.sanctions.server;
+
+import com.example.sanctions.engine.ScreeningEngine;
+import com.example.sanctions.engine.ScreeningListener;
+import com.example.sanctions.store.NameStore;
+import com.example.sanctions.util.DataLoader;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One complete build of the blocklist: the ChronicleMap store, the loader's bloom, alias,
+ * phonetic and fuzzy indexes over it, and the screening engine that runs them. A lookup pins
+ * the generation it starts on, so a reload can swap a new one in while in-flight lookups finish
+ * against a consistent snapshot; the old one is closed by the reload thread once its readers
+ * drain.
+ */
+class IndexGeneration {
+    final long number;
+    final NameStore store;
+    final DataLoader loader;
+    final ScreeningEngine engine;
+    final ScreeningListener listener;   // records the engine's stages into LookupMetrics
+    private final File ownedFile;     // file or shard directory deleted on retire; null when not ours
+    // one word, not a LongAdder: sum() is no snapshot, and could read 0 while a reader holds the store
+    private final AtomicLong readers = new AtomicLong();
+    private volatile boolean retired;
+
+    IndexGeneration(long number, NameStore store, DataLoader loader, ScreeningEngine engine,
+                    ScreeningListener listener, File ownedFile) {
+        this.number = number;
+        this.store = store;
+        this.loader = loader;
+        this.engine = engine;
+        this.listener = listener;
+        this.ownedFile = ownedFile;
+    }
+
+    /** False once retired; the caller should re-read the current generation. */
+    boolean tryAcquire() {
+        readers.incrementAndGet();
+        if (!retired) return true;
+        readers.decrementAndGet();
+        return false;
+    }
+
+    void release() {
+        readers.decrementAndGet();
+    }
+
+    /**
+     * Waits for readers that acquired before retirement, then closes the store. Call only
+     * after the generation has been swapped out, from a background thread.
+     */
+    void retire() throws InterruptedException {
+        retired = true;
+        while (readers.get() > 0) Thread.sleep(1);
+        store.close();
+        if (ownedFile != null && !delete(ownedFile)) System.out.println("Could not delete " + ownedFile);
+    }
+
+    // a single store file, or a directory of shard files
+    private static boolean delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) for (File c : children) delete(c);
+        return f.delete();
+    }
+}
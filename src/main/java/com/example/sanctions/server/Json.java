@@ -0,0 +1,76 @@
+package com.example.sanctions.server;
+
+/**
+ * Just enough JSON for the lookup endpoints: string quoting and reading one string field
+ * from a flat object, without a parser dependency.
+ */
+final class Json {
+    private Json() {}
+
+    static StringBuilder quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"');
+    }
+
+    /** Value of the string field key in a flat JSON object, or null if absent or not a string. */
+    static String stringField(String json, String key) {
+        String k = "\"" + key + "\"";
+        for (int from = 0; ; ) {
+            int at = json.indexOf(k, from);
+            if (at < 0) return null;
+            int i = skipSpace(json, at + k.length());
+            from = at + k.length();
+            if (i >= json.length() || json.charAt(i) != ':') continue;
+            i = skipSpace(json, i + 1);
+            if (i >= json.length() || json.charAt(i) != '"') return null;
+            return unquote(json, i + 1);
+        }
+    }
+
+    private static int skipSpace(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    private static String unquote(String s, int i) {
+        StringBuilder sb = new StringBuilder();
+        while (i < s.length()) {
+            char c = s.charAt(i++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') { sb.append(c); continue; }
+            if (i >= s.length()) return null;
+            char e = s.charAt(i++);
+            switch (e) {
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (i + 4 > s.length()) return null;
+                    try {
+                        sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default: sb.append(e);
+            }
+        }
+        return null;   // unterminated
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.sanctions.server;
+
+import com.example.sanctions.util.TinyLfuCache;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-stage lookup latency and outcome counters, safe to record from any number of threads.
+ * Latencies go into HdrHistogram Recorders (wait-free on the recording side); each scrape
+ * swaps out the interval histograms and folds them into cumulative ones, so /metrics shows
+ * both the window since the previous scrape and everything since startup.
+ */
+public class LookupMetrics {
+    private static final long MAX_NANOS = 60_000_000_000L;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    public enum Stage {
+        NORMALIZE, CACHE, BLOOM, EXACT, ALIAS, BUCKET, QGRAM, TOKEN, DELETION, TOTAL, RANK;
+        final String label = name().toLowerCase(Locale.ROOT);
+        private static final Map<String, Stage> BY_LABEL = new HashMap<>();
+        static { for (Stage s : values()) BY_LABEL.put(s.label, s); }
+
+        /** The stage with this label, or null for a cascade stage without its own metrics. */
+        static Stage of(String label) {
+            return BY_LABEL.get(label);
+        }
+    }
+
+    public enum Outcome {
+        EMPTY, CACHE_HIT, EXACT_HIT, ALIAS_HIT, BUCKET_HIT, QGRAM_HIT, TOKEN_HIT, DELETION_HIT, MISS;
+        final String label = name().toLowerCase(Locale.ROOT);
+        private static final Map<String, Outcome> HITS = new HashMap<>();
+        static { for (Outcome o : values()) if (o.label.endsWith("_hit")) HITS.put(o.label.substring(0, o.label.length() - 4), o); }
+
+        /** The hit outcome of the stage with this label, or null. */
+        static Outcome hit(String stage) {
+            return HITS.get(stage);
+        }
+    }
+
+    private final Recorder[] stages = new Recorder[Stage.values().length];
+    private final LongAdder[] stageNanos = new LongAdder[stages.length];
+    private final Histogram[] stageTotals = new Histogram[stages.length];
+    private Histogram[] stageIntervals = new Histogram[stages.length];
+    private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+    private final Recorder candidates = new Recorder(Integer.MAX_VALUE, 3);
+    private final Histogram candidateTotal = new Histogram(Integer.MAX_VALUE, 3);
+    private Histogram candidateInterval;
+    private long intervalStart = System.nanoTime();
+    private volatile long generation;
+    private final LongAdder bloomRejects = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private volatile long lastReloadNanos;
+    private TinyLfuCache<?> cache;
+    private final LongAdder phoneticKeys = new LongAdder();
+    private final LongAdder phoneticPostings = new LongAdder();
+
+    public LookupMetrics() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new Recorder(1, MAX_NANOS, 3);
+            stageNanos[i] = new LongAdder();
+            stageTotals[i] = new Histogram(1, MAX_NANOS, 3);
+        }
+        for (int i = 0; i < outcomes.length; i++) outcomes[i] = new LongAdder();
+    }
+
+    /** Records the time since start against stage and returns now, so stages chain. */
+    public long stage(Stage stage, long start) {
+        long now = System.nanoTime();
+        record(stage, now - start);
+        return now;
+    }
+
+    public void record(Stage stage, long nanos) {
+        long t = Math.max(1, Math.min(nanos, MAX_NANOS));
+        stages[stage.ordinal()].recordValue(t);
+        stageNanos[stage.ordinal()].add(t);
+    }
+
+    /** Exactly one per lookup. */
+    public void outcome(Outcome outcome) {
+        outcomes[outcome.ordinal()].increment();
+    }
+
+    /** A lookup whose exact stage the bloom filter skipped; its outcome is recorded as well. */
+    public void bloomReject() {
+        bloomRejects.increment();
+    }
+
+    /** Size of the bucket the fuzzy stage scanned. */
+    public void candidates(int count) {
+        candidates.recordValue(count);
+    }
+
+    /** One phonetic bucket lookup: codes probed and the postings across them. */
+    public void phonetic(int keys, int postings) {
+        phoneticKeys.add(keys);
+        phoneticPostings.add(postings);
+    }
+
+    /** Adds the result cache's counters to the scrape; null if there is no cache. */
+    public void cache(TinyLfuCache<?> cache) {
+        this.cache = cache;
+    }
+
+    public void reloaded(long generation, long nanos) {
+        this.generation = generation;
+        this.lastReloadNanos = nanos;
+        reloads.increment();
+    }
+
+    /** Prometheus text exposition; rolls the interval over. */
+    public synchronized String scrape() {
+        long now = System.nanoTime();
+        double window = (now - intervalStart) / 1e9;
+        intervalStart = now;
+        for (int i = 0; i < stages.length; i++) {
+            stageIntervals[i] = stages[i].getIntervalHistogram(stageIntervals[i]);
+            stageTotals[i].add(stageIntervals[i]);
+        }
+        candidateInterval = candidates.getIntervalHistogram(candidateInterval);
+        candidateTotal.add(candidateInterval);
+
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("# HELP sanctions_lookup_outcomes_total Lookups by the stage that decided them.\n");
+        sb.append("# TYPE sanctions_lookup_outcomes_total counter\n");
+        for (Outcome o : Outcome.values())
+            sb.append("sanctions_lookup_outcomes_total{outcome=\"").append(o.label).append("\"} ")
+                    .append(outcomes[o.ordinal()].sum()).append('\n');
+        sb.append("# HELP sanctions_bloom_rejects_total Lookups the bloom filter kept from the exact stage.\n");
+        sb.append("# TYPE sanctions_bloom_rejects_total counter\n");
+        sb.append("sanctions_bloom_rejects_total ").append(bloomRejects.sum()).append('\n');
+
+        sb.append("# HELP sanctions_lookup_stage_seconds Stage latency since startup.\n");
+        sb.append("# TYPE sanctions_lookup_stage_seconds summary\n");
+        for (Stage s : Stage.values()) {
+            Histogram h = stageTotals[s.ordinal()];
+            String labels = "stage=\"" + s.label + "\"";
+            quantiles(sb, "sanctions_lookup_stage_seconds", labels, h, 1e-9);
+            sb.append("sanctions_lookup_stage_seconds_sum{").append(labels).append("} ")
+                    .append(fmt(stageNanos[s.ordinal()].sum() / 1e9)).append('\n');
+            sb.append("sanctions_lookup_stage_seconds_count{").append(labels).append("} ")
+                    .append(h.getTotalCount()).append('\n');
+        }
+        sb.append("# HELP sanctions_lookup_stage_interval_seconds Stage latency since the previous scrape.\n");
+        sb.append("# TYPE sanctions_lookup_stage_interval_seconds gauge\n");
+        for (Stage s : Stage.values())
+            quantiles(sb, "sanctions_lookup_stage_interval_seconds", "stage=\"" + s.label + "\"",
+                    stageIntervals[s.ordinal()], 1e-9);
+        sb.append("# HELP sanctions_lookup_stage_interval_count Stage executions since the previous scrape.\n");
+        sb.append("# TYPE sanctions_lookup_stage_interval_count gauge\n");
+        for (Stage s : Stage.values())
+            sb.append("sanctions_lookup_stage_interval_count{stage=\"").append(s.label).append("\"} ")
+                    .append(stageIntervals[s.ordinal()].getTotalCount()).append('\n');
+
+        sb.append("# HELP sanctions_lookup_candidates Bucket size scanned by the fuzzy stage since startup.\n");
+        sb.append("# TYPE sanctions_lookup_candidates summary\n");
+        quantiles(sb, "sanctions_lookup_candidates", "", candidateTotal, 1);
+        sb.append("sanctions_lookup_candidates_count ").append(candidateTotal.getTotalCount()).append('\n');
+        sb.append("# HELP sanctions_lookup_candidates_interval Bucket size scanned since the previous scrape.\n");
+        sb.append("# TYPE sanctions_lookup_candidates_interval gauge\n");
+        quantiles(sb, "sanctions_lookup_candidates_interval", "", candidateInterval, 1);
+
+        sb.append("# HELP sanctions_phonetic_keys_total Phonetic codes probed by the bucket stage.\n");
+        sb.append("# TYPE sanctions_phonetic_keys_total counter\n");
+        sb.append("sanctions_phonetic_keys_total ").append(phoneticKeys.sum()).append('\n');
+        sb.append("# HELP sanctions_phonetic_postings_total Postings read across those codes, duplicates included.\n");
+        sb.append("# TYPE sanctions_phonetic_postings_total counter\n");
+        sb.append("sanctions_phonetic_postings_total ").append(phoneticPostings.sum()).append('\n');
+
+        if (cache != null) {
+            long hits = cache.hits(), misses = cache.misses();
+            sb.append("# HELP sanctions_cache_requests_total Result cache lookups.\n");
+            sb.append("# TYPE sanctions_cache_requests_total counter\n");
+            sb.append("sanctions_cache_requests_total{result=\"hit\"} ").append(hits).append('\n');
+            sb.append("sanctions_cache_requests_total{result=\"miss\"} ").append(misses).append('\n');
+            sb.append("# HELP sanctions_cache_hit_ratio Result cache hits over lookups since startup.\n");
+            sb.append("# TYPE sanctions_cache_hit_ratio gauge\n");
+            sb.append("sanctions_cache_hit_ratio ").append(fmt(hits + misses == 0 ? 0 : (double) hits / (hits + misses))).append('\n');
+            sb.append("# HELP sanctions_cache_evictions_total Entries evicted or refused admission by the result cache.\n");
+            sb.append("# TYPE sanctions_cache_evictions_total counter\n");
+            sb.append("sanctions_cache_evictions_total ").append(cache.evictions()).append('\n');
+            sb.append("# HELP sanctions_cache_entries Result cache entries, of sanctions.cache.size.\n");
+            sb.append("# TYPE sanctions_cache_entries gauge\n");
+            sb.append("sanctions_cache_entries ").append(cache.size()).append('\n');
+        }
+
+        sb.append("# HELP sanctions_index_generation Index generation serving lookups.\n");
+        sb.append("# TYPE sanctions_index_generation gauge\n");
+        sb.append("sanctions_index_generation ").append(generation).append('\n');
+        sb.append("# HELP sanctions_index_reloads_total Completed blocklist reloads.\n");
+        sb.append("# TYPE sanctions_index_reloads_total counter\n");
+        sb.append("sanctions_index_reloads_total ").append(reloads.sum()).append('\n');
+        sb.append("# HELP sanctions_index_reload_seconds Build time of the last reload.\n");
+        sb.append("# TYPE sanctions_index_reload_seconds gauge\n");
+        sb.append("sanctions_index_reload_seconds ").append(fmt(lastReloadNanos / 1e9)).append('\n');
+        sb.append("# HELP sanctions_metrics_interval_seconds Length of the interval window.\n");
+        sb.append("# TYPE sanctions_metrics_interval_seconds gauge\n");
+        sb.append("sanctions_metrics_interval_seconds ").append(fmt(window)).append('\n');
+        return sb.toString();
+    }
+
+    private static void quantiles(StringBuilder sb, String name, String labels, Histogram h, double scale) {
+        String sep = labels.isEmpty() ? "" : ",";
+        for (double q : QUANTILES)
+            sb.append(name).append('{').append(labels).append(sep).append("quantile=\"").append(q).append("\"} ")
+                    .append(fmt(h.getValueAtPercentile(q * 100) * scale)).append('\n');
+        sb.append(name).append('{').append(labels).append(sep).append("quantile=\"1.0\"} ")
+                .append(fmt(h.getMaxValue() * scale)).append('\n');
+    }
+
+    private static String fmt(double v) {
+        return v == (long) v ? Long.toString((long) v) : Double.toString(v);
+    }
+}
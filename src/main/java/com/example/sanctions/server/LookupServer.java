@@ -1,8 +1,12 @@
 package com.example.sanctions.server;
 
+import com.example.sanctions.engine.*;
 import com.example.sanctions.store.ChronicleMapLookup;
+import com.example.sanctions.store.NameStore;
+import com.example.sanctions.store.ShardedChronicleStore;
+import com.example.sanctions.server.LookupMetrics.Outcome;
+import com.example.sanctions.server.LookupMetrics.Stage;
 import com.example.sanctions.util.*;
-import org.HdrHistogram.Histogram;
 
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpExchange;
@@ -12,20 +16,72 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class LookupServer {
-    private final ChronicleMapLookup store;
-    private final DataLoader loader;
-    private final Histogram histLookup = new Histogram(1, 10_000_000_000L, 3);
+    private static final long EXPECTED_ENTRIES = 5_000_000L;
+    // > 0 creates a ShardedChronicleStore with this many parts when the store path is new
+    private static final int STORE_SHARDS = Integer.getInteger("sanctions.store.shards", 0);
+    private static final int FUZZY_MAX_EDITS = Integer.getInteger("sanctions.fuzzy.maxEdits", 2);
+    // phonetic bucket hits within this many edits; -1 takes any bucket entry (see README for recall)
+    private static final int PHONETIC_MAX_EDITS = Integer.getInteger("sanctions.phonetic.maxEdits", FUZZY_MAX_EDITS);
+    // buckets larger than this go to the q-gram index instead of a linear scan, when it is loaded
+    private static final int PHONETIC_MAX_BUCKET = Integer.getInteger("sanctions.phonetic.maxBucket", 2048);
+    // phonetic encoders indexed besides both Double Metaphone codes: "nysiis", "beidermorse" (slow to load)
+    private static final String PHONETIC_ENCODERS = System.getProperty("sanctions.phonetic.encoders", "");
+    // "phonetic" (DoubleMetaphone bucket) or "minhash" (LSH bands) feeds the bucket stage
+    private static final boolean MINHASH_CANDIDATES = "minhash".equals(System.getProperty("sanctions.candidates"));
+    // POST /lookup/batch: names accepted per request, and names screened per in-memory window
+    private static final int BATCH_MAX_SIZE = Integer.getInteger("sanctions.batch.maxSize", 1_000_000);
+    private static final int BATCH_WINDOW = Integer.getInteger("sanctions.batch.window", 4096);
+    // "fixed" (one platform thread per core) or "virtual" (one virtual thread per request, Java 21+)
+    private static final String EXECUTOR = System.getProperty("sanctions.executor", "fixed");
+    private static final int EXECUTOR_THREADS = Integer.getInteger("sanctions.executor.threads",
+            Runtime.getRuntime().availableProcessors());
+    private static final int BACKLOG = Integer.getInteger("sanctions.server.backlog", 4096);
+    // largest k accepted by /lookup?k=
+    private static final int MAX_K = Integer.getInteger("sanctions.lookup.maxK", 100);
+    // results per normalized name, hits and misses alike; 0 disables the cache
+    private static final int CACHE_SIZE = Integer.getInteger("sanctions.cache.size", 100_000);
+    private static final int CACHE_SEGMENTS = Integer.getInteger("sanctions.cache.segments",
+            4 * Runtime.getRuntime().availableProcessors());
 
-    public LookupServer(ChronicleMapLookup store, DataLoader loader) {
-        this.store = store;
-        this.loader = loader;
+    private final AtomicReference<IndexGeneration> current;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "index-reload");
+        t.setDaemon(true);
+        return t;
+    });
+    private File reloadChronicle;
+    private File reloadCsv;
+    private final LookupMetrics metrics = new LookupMetrics();
+    private final TinyLfuCache<Optional<String>> cache =
+            CACHE_SIZE > 0 ? new TinyLfuCache<>(CACHE_SIZE, CACHE_SEGMENTS) : null;
+
+    public LookupServer(NameStore store, DataLoader loader) {
+        this.current = new AtomicReference<>(generation(0, store, loader, null));
+        metrics.cache(cache);
+    }
+
+    /** Lets POST /admin/reload rebuild from csv, writing each new generation next to chronicleFile. */
+    public void enableReload(File chronicleFile, File csv) {
+        this.reloadChronicle = chronicleFile;
+        this.reloadCsv = csv;
     }
 
     public void start(int port) throws IOException {
-        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        // JDK server tuning, read once at first use: headers and body go out as separate writes,
+        // so without TCP_NODELAY keep-alive clients wait out delayed ACKs (~40ms per request);
+        // and past 200 idle connections it closes keep-alive connections after each response
+        defaultProperty("sun.net.httpserver.nodelay", "true");
+        defaultProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(BACKLOG));
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        ExecutorService executor = newExecutor(EXECUTOR);
         server.createContext("/lookup", exchange -> {
             try {
                 handleLookup(exchange);
@@ -37,14 +93,27 @@ public class LookupServer {
                 exchange.close();
             }
         });
+        server.createContext("/lookup/batch", new BatchHandler(this::lookup, this::exactAll, executor, BATCH_MAX_SIZE, BATCH_WINDOW));
+        server.createContext("/admin/reload", exchange -> {
+            try (exchange) {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().add("Allow", "POST");
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                int status = reloadCsv == null ? 404 : reload() ? 202 : 409;
+                String state = status == 404 ? "DISABLED" : status == 202 ? "RELOADING" : "BUSY";
+                byte[] b = ("{\"status\":\"" + state + "\",\"generation\":" + current.get().number + "}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, b.length);
+                exchange.getResponseBody().write(b);
+            }
+        });
         server.createContext("/metrics", exchange -> {
             try {
-                String resp = String.format("lookups_total:%d\np50_ms:%.3f\np95_ms:%.3f\np99_ms:%.3f\n",
-                        histLookup.getTotalCount(),
-                        histLookup.getValueAtPercentile(50) / 1_000_000.0,
-                        histLookup.getValueAtPercentile(95) / 1_000_000.0,
-                        histLookup.getValueAtPercentile(99) / 1_000_000.0);
-                byte[] b = resp.getBytes(StandardCharsets.UTF_8);
+                byte[] b = metrics.scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4");
                 exchange.sendResponseHeaders(200, b.length);
                 exchange.getResponseBody().write(b);
                 exchange.close();
@@ -53,53 +122,65 @@ public class LookupServer {
                 exchange.sendResponseHeaders(500, -1);
             }
         });
-        server.setExecutor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+        server.setExecutor(executor);
         server.start();
-        System.out.println("Server started on port " + port);
+        System.out.println("Server started on port " + port + " (" + EXECUTOR + " executor)");
+    }
+
+    private static void defaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) System.setProperty(key, value);
+    }
+
+    // built on 17, so the Java 21 virtual-thread factory is looked up reflectively
+    static ExecutorService newExecutor(String mode) {
+        switch (mode) {
+            case "fixed":
+                return Executors.newFixedThreadPool(EXECUTOR_THREADS);
+            case "virtual":
+                try {
+                    return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("sanctions.executor=virtual needs Java 21 or later", e);
+                }
+            default:
+                throw new IllegalArgumentException("sanctions.executor must be fixed or virtual: " + mode);
+        }
     }
 
     private void handleLookup(HttpExchange exchange) throws Exception {
         URI uri = exchange.getRequestURI();
         String q = uri.getQuery();
         String name = null;
+        boolean explain = false;
+        int k = 0;
         if (q != null) {
             for (String part : q.split("&")) {
                 int eq = part.indexOf('=');
-                if (eq > 0 && part.substring(0, eq).equals("name"))
-                    name = java.net.URLDecoder.decode(part.substring(eq + 1), "UTF-8");
+                if (eq <= 0) continue;
+                String key = part.substring(0, eq);
+                if (key.equals("name")) name = java.net.URLDecoder.decode(part.substring(eq + 1), "UTF-8");
+                else if (key.equals("explain")) explain = Boolean.parseBoolean(part.substring(eq + 1));
+                else if (key.equals("k")) k = parseK(part.substring(eq + 1));
             }
         }
-        long t0 = System.nanoTime();
-        String result = null;
-        if (name != null && !name.isEmpty()) {
-            String norm = NormalizerUtil.normalize(name);
-            // Bloom filter quick negative test
-            if (!loader.bloom().mightContain(norm)) {
-                result = null;
-            } else {
-                // exact
-                result = store.get(norm);
-                // alias
-                if (result == null) {
-                    Optional<String> a = loader.lookupAlias(norm);
-                    if (a.isPresent()) result = store.get(a.get());
-                }
-                // phonetic
-                if (result == null) {
-                    String code = PhoneticIndexer.code(norm);
-                    for (String cand : loader.phoneticCandidates(code)) {
-                        if (cand.equals(norm)) continue;
-                        // quick equality; for fuzzy we could compute distance
-                        String cult = store.get(cand);
-                        if (cult != null) { result = cult; break; }
-                    }
-                }
-            }
+        if (k < 0) {
+            byte[] b = ("{\"error\":\"k must be 1.." + MAX_K + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(400, b.length);
+            exchange.getResponseBody().write(b);
+            exchange.close();
+            return;
+        }
+        String resp;
+        if (k > 0) {
+            resp = name != null && !name.isEmpty() ? topJson(name, k) : "{\"status\":\"NOT_FOUND\",\"matches\":[]}";
+        } else if (explain) {
+            LookupTrace trace = new LookupTrace(name == null ? "" : name);
+            if (name != null && !name.isEmpty()) lookup(name, trace);
+            resp = trace.toJson();
+        } else {
+            String result = name != null && !name.isEmpty() ? lookup(name, null) : null;
+            resp = result == null ? "{\"status\":\"NOT_FOUND\"}" : ("{\"status\":\"FOUND\",\"culture\":\"" + result + "\"}");
         }
-        long t = System.nanoTime() - t0;
-        histLookup.recordValue(t);
-
-        String resp = result == null ? "{\"status\":\"NOT_FOUND\"}" : ("{\"status\":\"FOUND\",\"culture\":\"" + result + "\"}");
         byte[] b = resp.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().add("Content-Type", "application/json");
         exchange.sendResponseHeaders(200, b.length);
@@ -107,19 +188,226 @@ public class LookupServer {
         exchange.close();
     }
 
+    // -1 when out of range or not a number
+    private static int parseK(String s) {
+        try {
+            int k = Integer.parseInt(s);
+            return k >= 1 && k <= MAX_K ? k : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // the k best matches, best first; see DataLoader.rank for the scores
+    private TopK rank(IndexGeneration g, String name, int k) {
+        TopK top = new TopK(k);
+        String norm = NormalizerUtil.normalize(name);
+        if (!norm.isEmpty()) g.loader.rank(norm, FUZZY_MAX_EDITS, PHONETIC_MAX_BUCKET, top);
+        top.sort();
+        return top;
+    }
+
+    // names and cultures are resolved against the same generation that ranked them
+    private String topJson(String name, int k) {
+        IndexGeneration g = acquire();
+        try {
+            long t0 = System.nanoTime();
+            TopK top = rank(g, name, k);
+            metrics.stage(Stage.RANK, t0);
+            StringBuilder sb = new StringBuilder(64 + 96 * top.size());
+            sb.append("{\"status\":\"").append(top.size() == 0 ? "NOT_FOUND" : "FOUND").append("\",\"matches\":[");
+            for (int i = 0; i < top.size(); i++) {
+                String match = g.loader.name(top.id(i));
+                String culture = g.store.get(match);
+                Json.quote(sb.append(i > 0 ? ",{\"name\":" : "{\"name\":"), match);
+                if (culture != null) Json.quote(sb.append(",\"culture\":"), culture);
+                sb.append(",\"score\":").append(Math.round(top.score(i) * 10000) / 10000.0).append('}');
+            }
+            return sb.append("]}").toString();
+        } finally {
+            g.release();
+        }
+    }
+
+    /**
+     * Runs the current generation's ScreeningEngine (exact behind the bloom filter, alias,
+     * phonetic bucket or q-gram index, token index, deletion index) for a raw name. Returns the
+     * culture of the match, or null.
+     */
+    public String lookup(String name) {
+        return lookup(name, null);
+    }
+
+    /** As lookup(name), also filling trace when it is non-null. */
+    String lookup(String name, LookupTrace trace) {
+        IndexGeneration g = acquire();
+        try {
+            return lookup(g, name, trace);
+        } finally {
+            g.release();
+        }
+    }
+
+    /**
+     * Exact hits for names[0 .. n), read with one ShardedChronicleStore.getAll so the shards are
+     * read in parallel; null where a name is left to lookup(), and null when the store is not
+     * sharded. A hit here is what the cascade's exact stage would answer.
+     */
+    String[] exactAll(String[] names, int n) throws IOException {
+        IndexGeneration g = acquire();
+        try {
+            if (!(g.store instanceof ShardedChronicleStore)) return null;
+            List<String> keys = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                String norm = names[i] == null ? "" : NormalizerUtil.normalize(names[i]);
+                keys.add(norm.isEmpty() || !g.loader.bloom().mightContain(norm) ? null : norm);
+            }
+            String[] hits = ((ShardedChronicleStore) g.store).getAll(keys);
+            for (String h : hits) if (h != null) metrics.outcome(Outcome.EXACT_HIT);
+            return hits;
+        } finally {
+            g.release();
+        }
+    }
+
+    private IndexGeneration acquire() {
+        while (true) {
+            IndexGeneration g = current.get();
+            if (g.tryAcquire()) return g;
+            Thread.onSpinWait();    // swapped out between get and acquire; the new one is already set
+        }
+    }
+
+    private String lookup(IndexGeneration g, String name, LookupTrace trace) {
+        Screening s = g.engine.screen(name, trace != null, g.listener);
+        ScreeningStage by = s.decidedBy();
+        if (s.phoneticCodes() != null) metrics.phonetic(s.phoneticCodes().size(), s.postingsRead());
+        if (s.bucketSize() >= 0 && !s.deferred()) metrics.candidates(s.bucketSize());
+        Outcome outcome;
+        if (by != null && by.name().equals("normalize")) {
+            outcome = Outcome.EMPTY;
+        } else {
+            if (!s.bloom()) metrics.bloomReject();
+            outcome = by == null ? null : Outcome.hit(by.name());
+            if (outcome == null || s.result() == null && outcome != Outcome.CACHE_HIT) outcome = Outcome.MISS;
+        }
+        metrics.outcome(outcome);
+        if (outcome != Outcome.EMPTY) {
+            metrics.record(Stage.TOTAL, s.elapsedNanos());
+            if (trace != null) trace.totalNanos = s.elapsedNanos();
+        }
+        if (trace != null) {
+            trace.screening = s;
+            trace.outcome = outcome;
+        }
+        return s.result();
+    }
+
+    public LookupMetrics metrics() { return metrics; }
+
+    // the standard cascade over this generation's indexes, behind the result cache
+    private IndexGeneration generation(long number, NameStore store, DataLoader loader, File ownedFile) {
+        List<ScreeningStage> stages = Stages.standard(store, loader, PHONETIC_MAX_EDITS, PHONETIC_MAX_BUCKET, MINHASH_CANDIDATES);
+        if (cache != null) stages.add(new CacheStage(cache, number));
+        CascadeEngine engine = new CascadeEngine(stages);
+        // metric per run position, resolved once; stages without their own metric are not recorded
+        Stage[] byPosition = engine.stageNames().stream().map(Stage::of).toArray(Stage[]::new);
+        ScreeningListener listener = (position, stage, nanos) -> {
+            if (byPosition[position] != null) metrics.record(byPosition[position], nanos);
+        };
+        return new IndexGeneration(number, store, loader, engine, listener, ownedFile);
+    }
+
+    /**
+     * Builds the next generation from the reload CSV in the background and swaps it in;
+     * false if a reload is already running.
+     */
+    public boolean reload() {
+        if (reloadCsv == null) throw new IllegalStateException("reload not enabled");
+        if (!reloading.compareAndSet(false, true)) return false;
+        reloader.execute(() -> {
+            try {
+                long t0 = System.nanoTime();
+                long n = current.get().number + 1;
+                File file = new File(reloadChronicle.getPath() + ".gen" + n);
+                deleteStore(file);
+                NameStore store = openStore(file, current.get().store);
+                IndexGeneration next;
+                try {
+                    DataLoader loader = newLoader(store);
+                    loader.loadCsv(reloadCsv);
+                    next = generation(n, store, loader, file);
+                } catch (Exception e) {
+                    store.close();
+                    deleteStore(file);
+                    throw e;
+                }
+                IndexGeneration old = current.getAndSet(next);
+                metrics.reloaded(n, System.nanoTime() - t0);
+                System.out.printf("Generation %d live (%,d names) in %d ms%n",
+                        n, next.loader.size(), (System.nanoTime() - t0) / 1_000_000);
+                old.retire();
+            } catch (Exception e) {
+                System.out.println("Reload failed, keeping generation " + current.get().number);
+                e.printStackTrace();
+            } finally {
+                reloading.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Opens a directory of part files (or a new path when sanctions.store.shards is set) as a
+     * ShardedChronicleStore, anything else as one ChronicleMap file. On reload, previous is the
+     * store being replaced and its layout is kept.
+     */
+    static NameStore openStore(File path, NameStore previous) throws Exception {
+        if (previous instanceof ShardedChronicleStore)
+            return ShardedChronicleStore.open(path, ((ShardedChronicleStore) previous).shardCount(), EXPECTED_ENTRIES);
+        if (previous == null && (path.isDirectory() || STORE_SHARDS > 0))
+            return ShardedChronicleStore.open(path, Math.max(1, STORE_SHARDS), EXPECTED_ENTRIES);
+        return new ChronicleMapLookup(path, EXPECTED_ENTRIES);
+    }
+
+    private static void deleteStore(File f) throws IOException {
+        File[] children = f.listFiles();
+        if (children != null) for (File c : children) Files.deleteIfExists(c.toPath());
+        Files.deleteIfExists(f.toPath());
+    }
+
+    /** A loader with the indexes enabled by the sanctions.* properties. */
+    static DataLoader newLoader(NameStore store) {
+        DataLoader loader = new DataLoader(store, (int) EXPECTED_ENTRIES);
+        int deletionEdits = Integer.getInteger("sanctions.deletionIndex.maxEdits", 0);
+        if (deletionEdits > 0)
+            loader.enableDeletionIndex(deletionEdits, Integer.getInteger("sanctions.deletionIndex.prefix", 7));
+        int q = Integer.getInteger("sanctions.qgram.q", 0);
+        if (q > 0) loader.enableQGramIndex(q, FUZZY_MAX_EDITS);
+        double tokenScore = Double.parseDouble(System.getProperty("sanctions.token.minScore", "0"));
+        if (tokenScore > 0) loader.enableTokenIndex(tokenScore);
+        loader.enablePhoneticEncoders(PhoneticIndexer.Encoder.parse(PHONETIC_ENCODERS));
+        if (MINHASH_CANDIDATES)
+            loader.enableMinHashIndex(Integer.getInteger("sanctions.minhash.bands", 20),
+                    Integer.getInteger("sanctions.minhash.rows", 3),
+                    Integer.getInteger("sanctions.minhash.shingle", 3), FUZZY_MAX_EDITS);
+        return loader;
+    }
+
     // main helper to start quickly
     public static void main(String[] args) throws Exception {
         if (args.length < 2) {
-            System.out.println("Usage: LookupServer <chronicleFile> <csvFile> [port]");
+            System.out.println("Usage: LookupServer <chronicleFile|partDir> <csvFile> [port]");
             System.exit(1);
         }
         File chronFile = new File(args[0]);
         File csvFile = new File(args[1]);
         int port = args.length > 2 ? Integer.parseInt(args[2]) : 8080;
-        ChronicleMapLookup store = new ChronicleMapLookup(chronFile, 5_000_000L);
-        DataLoader loader = new DataLoader(store, 5_000_000);
+        NameStore store = openStore(chronFile, null);
+        DataLoader loader = newLoader(store);
         loader.loadCsv(csvFile);
         LookupServer server = new LookupServer(store, loader);
+        server.enableReload(chronFile, csvFile);
         server.start(port);
     }
 }
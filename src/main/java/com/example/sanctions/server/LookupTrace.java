@@ -0,0 +1,69 @@
+package com.example.sanctions.server;
+
+import com.example.sanctions.engine.Screening;
+import com.example.sanctions.engine.ScreeningStage;
+import com.example.sanctions.server.LookupMetrics.Outcome;
+
+import java.util.List;
+
+/**
+ * What one lookup did, for /lookup?explain=true: the engine's Screening plus the outcome,
+ * total time and allocation. Only allocated when explain is asked for.
+ */
+class LookupTrace {
+    final String name;
+    Screening screening;
+    Outcome outcome;
+    long totalNanos = -1;
+
+    LookupTrace(String name) {
+        this.name = name;
+    }
+
+    String toJson() {
+        Screening s = screening;
+        String result = s == null ? null : s.result();
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\"status\":\"").append(result == null ? "NOT_FOUND" : "FOUND").append('"');
+        if (result != null) Json.quote(sb.append(",\"culture\":"), result);
+        sb.append(",\"explain\":{");
+        Json.quote(sb.append("\"name\":"), name);
+        if (s != null) {
+            Json.quote(sb.append(",\"normalized\":"), s.normalized());
+            sb.append(",\"bloom\":").append(s.bloom() && !s.normalized().isEmpty());
+            if (s.candidateSource() != null) Json.quote(sb.append(",\"candidateSource\":"), s.candidateSource());
+            List<String> codes = s.phoneticCodes();
+            if (codes != null) {
+                sb.append(",\"phoneticCodes\":[");
+                for (int i = 0; i < codes.size(); i++) Json.quote(sb.append(i > 0 ? "," : ""), codes.get(i));
+                sb.append(']');
+            }
+            if (s.bucketSize() >= 0) sb.append(",\"bucketSize\":").append(s.bucketSize());
+            if (s.unionSize() >= 0) sb.append(",\"unionSize\":").append(s.unionSize());
+        } else {
+            sb.append(",\"bloom\":false");
+        }
+        sb.append(",\"scans\":[");
+        List<int[]> scans = s == null ? List.of() : s.scans();
+        for (int i = 0; i < scans.size(); i++) {
+            int[] c = scans.get(i);
+            if (i > 0) sb.append(',');
+            Json.quote(sb.append("{\"stage\":"), s.scanStages().get(i));
+            sb.append(",\"candidates\":").append(c[0]).append(",\"pruned\":").append(c[1])
+                    .append(",\"scored\":").append(c[2]).append('}');
+        }
+        sb.append(']');
+        if (outcome != null) sb.append(",\"outcome\":\"").append(outcome.label).append('"');
+        sb.append(",\"path\":[");
+        List<ScreeningStage> path = s == null ? List.of() : s.path();
+        for (int i = 0; i < path.size(); i++) {
+            Json.quote(sb.append(i > 0 ? ",{\"stage\":" : "{\"stage\":"), path.get(i).name());
+            sb.append(",\"nanos\":").append(s.pathNanos().get(i)).append('}');
+        }
+        if (totalNanos >= 0)
+            sb.append(path.isEmpty() ? "" : ",").append("{\"stage\":\"total\",\"nanos\":").append(totalNanos).append('}');
+        sb.append(']');
+        if (s != null && s.allocatedBytes() >= 0) sb.append(",\"allocatedBytes\":").append(s.allocatedBytes());
+        return sb.append("}}").toString();
+    }
+}
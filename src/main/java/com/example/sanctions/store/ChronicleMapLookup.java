@@ -5,7 +5,7 @@ import net.openhft.chronicle.map.ChronicleMapBuilder;
 
 import java.io.File;
 
-public class ChronicleMapLookup {
+public class ChronicleMapLookup implements NameStore {
     private final ChronicleMap<String,String> map;
 
     public ChronicleMapLookup(File persistFile, long expectedEntries) throws Exception {
@@ -17,21 +17,25 @@ public class ChronicleMapLookup {
                 .createOrRecoverPersistedTo(persistFile);
     }
 
+    @Override
     public void put(String key, String value) {
         if (key == null) return;
         map.put(key, value);
     }
 
+    @Override
     public String get(String key) {
         if (key == null) return null;
         return map.get(key);
     }
 
+    @Override
     public boolean containsKey(String key) {
         if (key == null) return false;
         return map.containsKey(key);
     }
 
+    @Override
     public void close() {
         map.close();
     }
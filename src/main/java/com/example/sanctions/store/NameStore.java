@@ -0,0 +1,15 @@
+package com.example.sanctions.store;
+
+/**
+ * Persistent normalized-name -> culture map behind the screening cascade.
+ */
+public interface NameStore extends AutoCloseable {
+    void put(String key, String value);
+
+    String get(String key);
+
+    boolean containsKey(String key);
+
+    @Override
+    void close();
+}
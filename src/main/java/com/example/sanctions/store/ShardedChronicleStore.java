@@ -0,0 +1,172 @@
+package com.example.sanctions.store;
+
+import com.example.sanctions.util.Hashing;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A directory of ChronicleMap part files (sample_data_part1.dat .. partN.dat, as written by
+ * Main) served as one store. Keys are routed to part shardOf(key, N) + 1 by a hash that is
+ * stable across JVMs, so each part can be rebuilt or replaced on its own as long as N stays
+ * the same, and the whole store can grow past single-file limits.
+ */
+public class ShardedChronicleStore implements NameStore {
+    public static final String PART_PREFIX = "sample_data_part";
+    private static final Pattern PART = Pattern.compile(Pattern.quote(PART_PREFIX) + "(\\d+)\\.dat");
+
+    private final ChronicleMap<String, String>[] shards;
+    private final ExecutorService executor;
+
+    private ShardedChronicleStore(ChronicleMap<String, String>[] shards, ExecutorService executor) {
+        this.shards = shards;
+        this.executor = executor;
+    }
+
+    /** Shard index in [0, shards) for key; part file number is this + 1. */
+    public static int shardOf(CharSequence key, int shards) {
+        return (int) Long.remainderUnsigned(Hashing.hash64(key), shards);
+    }
+
+    public static File partFile(File dir, int shard) {
+        return new File(dir, PART_PREFIX + (shard + 1) + ".dat");
+    }
+
+    /**
+     * Opens every part file in dir in parallel. If dir has none, creates shardCount empty
+     * parts sized for expectedEntries between them.
+     */
+    public static ShardedChronicleStore open(File dir, int shardCount, long expectedEntries) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("cannot create " + dir);
+        int n = countParts(dir);
+        boolean create = n == 0;
+        if (create) n = shardCount;
+        long perShard = expectedEntries / n + 1;
+        int threads = Math.min(n, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "shard-io");
+            t.setDaemon(true);
+            return t;
+        });
+        @SuppressWarnings("unchecked")
+        ChronicleMap<String, String>[] shards = new ChronicleMap[n];
+        List<Future<?>> opens = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int shard = i;
+            opens.add(executor.submit(() -> {
+                File f = partFile(dir, shard);
+                // an existing file is mapped with the configuration stored in its header
+                shards[shard] = newShard(shard, create ? perShard : 1).createPersistedTo(f);
+                return null;
+            }));
+        }
+        try {
+            await(opens);
+        } catch (IOException e) {
+            for (ChronicleMap<String, String> m : shards) if (m != null) m.close();
+            executor.shutdown();
+            throw e;
+        }
+        return new ShardedChronicleStore(shards, executor);
+    }
+
+    private static ChronicleMapBuilder<String, String> newShard(int shard, long entries) {
+        return ChronicleMap.of(String.class, String.class)
+                .name("sample-map-" + (shard + 1))
+                .averageKeySize(20)
+                .averageValueSize(32)
+                .entries(entries)
+                .maxBloatFactor(4.0);
+    }
+
+    // parts must be numbered 1..N without gaps, or routing would send keys to the wrong file
+    private static int countParts(File dir) throws IOException {
+        String[] files = dir.list();
+        int max = 0, count = 0;
+        if (files != null) {
+            for (String f : files) {
+                Matcher m = PART.matcher(f);
+                if (!m.matches()) continue;
+                max = Math.max(max, Integer.parseInt(m.group(1)));
+                count++;
+            }
+        }
+        if (count != max) throw new IOException(dir + ": expected parts 1.." + max + ", found " + count);
+        return count;
+    }
+
+    public int shardCount() { return shards.length; }
+
+    private ChronicleMap<String, String> shard(String key) {
+        return shards[shardOf(key, shards.length)];
+    }
+
+    @Override
+    public void put(String key, String value) {
+        if (key == null) return;
+        shard(key).put(key, value);
+    }
+
+    @Override
+    public String get(String key) {
+        if (key == null) return null;
+        return shard(key).get(key);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        if (key == null) return false;
+        return shard(key).containsKey(key);
+    }
+
+    /** Values for keys, in order (null where absent); each shard's keys are read concurrently. */
+    public String[] getAll(List<String> keys) throws IOException {
+        String[] out = new String[keys.size()];
+        int n = shards.length;
+        int[][] byShard = new int[n][];
+        int[] counts = new int[n];
+        for (String k : keys) if (k != null) counts[shardOf(k, n)]++;
+        for (int s = 0; s < n; s++) byShard[s] = new int[counts[s]];
+        for (int i = 0; i < keys.size(); i++) {
+            String k = keys.get(i);
+            if (k == null) continue;
+            int s = shardOf(k, n);
+            byShard[s][--counts[s]] = i;
+        }
+        List<Future<?>> reads = new ArrayList<>();
+        for (int s = 0; s < n; s++) {
+            if (byShard[s].length == 0) continue;
+            ChronicleMap<String, String> map = shards[s];
+            int[] idx = byShard[s];
+            reads.add(executor.submit(() -> {
+                for (int i : idx) out[i] = map.get(keys.get(i));
+            }));
+        }
+        await(reads);
+        return out;
+    }
+
+    private static void await(List<Future<?>> futures) throws IOException {
+        try {
+            for (Future<?> f : futures) f.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new java.io.InterruptedIOException("interrupted");
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        for (ChronicleMap<String, String> m : shards) m.close();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.sanctions.test;
+
+import com.example.sanctions.util.FuzzyMatcher;
+import com.example.sanctions.util.NameArena;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar Myers loop against the Vector API kernel, one query against a candidate bucket.
+ * Half the bucket is within a few edits of the query (so the DP runs to the end) and half is
+ * random names of about the same length (which the scalar loop abandons early).
+ * Run with: java -cp target/sanctions-java-poc-0.1.0.jar org.openjdk.jmh.Main BatchScoringBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Dsanctions.fuzzy.simd=true"})
+@State(Scope.Thread)
+public class BatchScoringBenchmark {
+
+    private static final int QUERY_COUNT = 64; // power of two, see next()
+    private static final int MAX_EDITS = 2;
+
+    @Param({"8", "64", "512", "4096"})
+    public int bucketSize;
+
+    @Param({"20"})
+    public int nameLength;
+
+    NameArena names;
+    FuzzyMatcher.Query[] queries = new FuzzyMatcher.Query[QUERY_COUNT];
+    int[][] buckets = new int[QUERY_COUNT][];
+    int[] out;
+    int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rnd = new Random(42);
+        names = new NameArena(QUERY_COUNT * bucketSize);
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            String query = StageBenchmark.randomName(rnd, nameLength);
+            queries[q] = FuzzyMatcher.prepare(query);
+            buckets[q] = new int[bucketSize];
+            for (int k = 0; k < bucketSize; k++) {
+                buckets[q][k] = names.add(k % 2 == 0
+                        ? mutate(rnd, query, 1 + rnd.nextInt(4))
+                        : StageBenchmark.randomName(rnd, nameLength - 1 + rnd.nextInt(3)));
+            }
+        }
+        names.trim();
+        out = new int[bucketSize];
+        if (!FuzzyMatcher.simd(queries[0], names)) System.err.println("Vector API kernel off, vector = scalar");
+    }
+
+    @Benchmark
+    public int scalar() {
+        int q = i++ & (QUERY_COUNT - 1), sum = 0;
+        FuzzyMatcher.Query query = queries[q];
+        for (int id : buckets[q]) sum += query.distance(names, id, MAX_EDITS);
+        return sum;
+    }
+
+    @Benchmark
+    public int vector() {
+        int q = i++ & (QUERY_COUNT - 1), sum = 0;
+        FuzzyMatcher.distances(queries[q], names, buckets[q], 0, bucketSize, MAX_EDITS, out);
+        for (int k = 0; k < bucketSize; k++) sum += out[k];
+        return sum;
+    }
+
+    // edits random substitutions, insertions and deletions
+    static String mutate(Random r, String s, int edits) {
+        StringBuilder sb = new StringBuilder(s);
+        for (int e = 0; e < edits && sb.length() > 1; e++) {
+            int p = r.nextInt(sb.length());
+            switch (r.nextInt(3)) {
+                case 0: sb.deleteCharAt(p); break;
+                case 1: sb.setCharAt(p, (char) ('A' + r.nextInt(26))); break;
+                default: sb.insert(p, (char) ('A' + r.nextInt(26)));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,8 +1,9 @@
 package com.example.sanctions.test;
 
+import com.example.sanctions.engine.ScreeningEngine;
+import com.example.sanctions.engine.Stages;
 import com.example.sanctions.store.ChronicleMapLookup;
 import com.example.sanctions.util.DataLoader;
-import com.example.sanctions.util.NormalizerUtil;
 import org.HdrHistogram.Histogram;
 
 import java.io.File;
@@ -19,6 +20,8 @@ public class Benchmark {
         ChronicleMapLookup store = new ChronicleMapLookup(new File(args[0]), 5_000_000L);
         DataLoader loader = new DataLoader(store, 5_000_000);
         loader.loadCsv(new File(args[1]));
+        // the server's cascade, without its result cache
+        ScreeningEngine engine = Stages.standardEngine(store, loader, 2, 2048, false);
 
         List<String> keys = new ArrayList<>();
         // sample a few keys from store by reading csv
@@ -26,7 +29,7 @@ public class Benchmark {
             String line; int c=0;
             while ((line = br.readLine()) != null && c < 100000) {
                 String[] p = line.split(",", 2);
-                if (p.length>=1) { keys.add(NormalizerUtil.normalize(p[0])); c++; }
+                if (p.length>=1) { keys.add(p[0]); c++; }
             }
         }
 
@@ -36,7 +39,7 @@ public class Benchmark {
         for (int i = 0; i < iterations; i++) {
             String k = keys.get(rnd.nextInt(keys.size()));
             long t0 = System.nanoTime();
-            String v = store.get(k);
+            String v = engine.screen(k);
             long t = System.nanoTime() - t0;
             hist.recordValue(t);
         }
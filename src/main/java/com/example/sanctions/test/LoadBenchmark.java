@@ -0,0 +1,126 @@
+package com.example.sanctions.test;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running LookupServer: each client holds one keep-alive
+ * connection and sends /lookup requests back to back, so thousands of clients mean thousands
+ * of open connections. Run it once against a server started with -Dsanctions.executor=fixed
+ * and once with =virtual (Java 21+) to compare throughput and tail latency.
+ */
+public class LoadBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: LoadBenchmark <csvFile> [host] [port] [clients] [seconds] [warmupSeconds]");
+            return;
+        }
+        String host = args.length > 1 ? args[1] : "localhost";
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 8080;
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+        int warmup = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+
+        // queries: the list's own names (hits) and one-letter typos of them (fuzzy path)
+        List<String> paths = new ArrayList<>();
+        Random rnd = new Random(42);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null && paths.size() < 200_000) {
+                String name = line.split(",", 2)[0];
+                if (name.isBlank()) continue;
+                if (rnd.nextBoolean()) {
+                    char[] c = name.toCharArray();
+                    c[rnd.nextInt(c.length)] = (char) ('A' + rnd.nextInt(26));
+                    name = new String(c);
+                }
+                paths.add("/lookup?name=" + URLEncoder.encode(name, StandardCharsets.UTF_8));
+            }
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup * 1_000_000_000L;
+        long end = measureFrom + seconds * 1_000_000_000L;
+        AtomicLong errors = new AtomicLong();
+        AtomicLong connects = new AtomicLong();
+        Histogram[] hists = new Histogram[clients];
+        Thread[] threads = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            Histogram h = hists[i] = new Histogram(1, 60_000_000_000L, 3);
+            long seed = i;
+            threads[i] = new Thread(null, () -> run(host, port, paths, new Random(seed), h, measureFrom, end, errors, connects),
+                    "load-" + i, 256 * 1024);
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+
+        Histogram all = new Histogram(1, 60_000_000_000L, 3);
+        for (Histogram h : hists) all.add(h);
+        System.out.printf("clients=%d connects=%d requests=%d errors=%d rps=%.0f p50_ms=%.3f p99_ms=%.3f p999_ms=%.3f max_ms=%.3f%n",
+                clients, connects.get(), all.getTotalCount(), errors.get(), all.getTotalCount() / (double) seconds,
+                all.getValueAtPercentile(50) / 1_000_000.0,
+                all.getValueAtPercentile(99) / 1_000_000.0,
+                all.getValueAtPercentile(99.9) / 1_000_000.0,
+                all.getMaxValue() / 1_000_000.0);
+    }
+
+    private static void run(String host, int port, List<String> paths, Random rnd, Histogram hist,
+                            long measureFrom, long end, AtomicLong errors, AtomicLong connects) {
+        byte[] buf = new byte[8192];
+        while (System.nanoTime() < end) {
+            try (Socket s = new Socket()) {
+                s.connect(new InetSocketAddress(host, port), 10_000);
+                s.setTcpNoDelay(true);
+                connects.incrementAndGet();
+                OutputStream out = new BufferedOutputStream(s.getOutputStream());
+                InputStream in = new BufferedInputStream(s.getInputStream());
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    String path = paths.get(rnd.nextInt(paths.size()));
+                    out.write(("GET " + path + " HTTP/1.1\r\nHost: " + host + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                    out.flush();
+                    int status = readResponse(in, buf);
+                    long t = System.nanoTime() - now;
+                    if (status != 200) errors.incrementAndGet();
+                    else if (now >= measureFrom) hist.recordValue(t);
+                }
+            } catch (IOException e) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    // reads one Content-Length delimited response, returns the status code
+    private static int readResponse(InputStream in, byte[] buf) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.substring(9, 12));
+        int length = 0;
+        for (String h; !(h = readLine(in)).isEmpty(); ) {
+            if (h.regionMatches(true, 0, "Content-Length:", 0, 15)) length = Integer.parseInt(h.substring(15).trim());
+        }
+        while (length > 0) {
+            int n = in.read(buf, 0, Math.min(buf.length, length));
+            if (n < 0) throw new EOFException();
+            length -= n;
+        }
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int c; (c = in.read()) != '\n'; ) {
+            if (c < 0) throw new EOFException();
+            if (c != '\r') sb.append((char) c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.sanctions.test;
+
+import com.example.sanctions.engine.ScreeningEngine;
+import com.example.sanctions.engine.Stages;
+import com.example.sanctions.server.LookupServer;
+import com.example.sanctions.store.ChronicleMapLookup;
+import com.example.sanctions.util.DataLoader;
+import com.example.sanctions.util.FuzzyMatcher;
+import com.example.sanctions.util.IntList;
+import com.example.sanctions.util.JaroWinkler;
+import com.example.sanctions.util.NormalizerUtil;
+import com.example.sanctions.util.PhoneticIndexer;
+import com.example.sanctions.util.TinyLfuCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite covering every stage of the screening hot path.
+ * Run with: java -cp target/sanctions-java-poc-0.1.0.jar org.openjdk.jmh.Main StageBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {
+        "--add-opens", "java.base/java.lang=ALL-UNNAMED",
+        "--add-opens", "java.base/java.lang.reflect=ALL-UNNAMED",
+        "--add-opens", "java.base/java.io=ALL-UNNAMED",
+        "--add-opens", "java.base/java.util=ALL-UNNAMED",
+        "--add-opens", "java.base/java.nio=ALL-UNNAMED",
+        "--add-opens", "java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-exports", "java.base/jdk.internal.ref=ALL-UNNAMED",
+        "--add-exports", "java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-exports", "jdk.unsupported/sun.misc=ALL-UNNAMED",
+        "--add-exports", "jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+        "--add-opens", "jdk.compiler/com.sun.tools.javac=ALL-UNNAMED",
+        "-Dchronicle.analytics.disable=true",
+        // lookupCascade measures the cascade itself; cacheHit covers the result cache
+        "-Dsanctions.cache.size=0"})
+public class StageBenchmark {
+
+    private static final int QUERY_COUNT = 1024; // power of two, see Cursor.next()
+    private static final int MAX_EDITS = 2;
+    private static final double JW_THRESHOLD = 0.88;
+    private static final int DELETION_PREFIX = 7;
+    private static final double TOKEN_MIN_SCORE = 0.8;
+
+    @State(Scope.Benchmark)
+    public static class Blocklist {
+        @Param({"10000", "100000"})
+        public int blocklistSize;
+
+        @Param({"8", "20"})
+        public int nameLength;
+
+        @Param({"0.1", "0.9"})
+        public double hitRatio;
+
+        File csv;
+        File chronicle;
+        ChronicleMapLookup store;
+        DataLoader loader;
+        LookupServer server;
+        ScreeningEngine engine;
+
+        // raw request names as a client would send them, and their normalized forms
+        String[] raw = new String[QUERY_COUNT];
+        String[] norm = new String[QUERY_COUNT];
+        String[] codes = new String[QUERY_COUNT];
+        FuzzyMatcher.Query[] prepared = new FuzzyMatcher.Query[QUERY_COUNT];
+        String[] neighbours = new String[QUERY_COUNT];
+        List<List<String>> buckets = new ArrayList<>(QUERY_COUNT);
+        List<List<String>> codeLists = new ArrayList<>(QUERY_COUNT);
+        IntList[] unions = new IntList[QUERY_COUNT];
+        TinyLfuCache<String> cache = new TinyLfuCache<>(4 * QUERY_COUNT, 16);
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            Random rnd = new Random(42);
+            List<String> names = new ArrayList<>(blocklistSize);
+            csv = File.createTempFile("bench-blocklist", ".csv");
+            try (BufferedWriter w = new BufferedWriter(new FileWriter(csv))) {
+                for (int i = 0; i < blocklistSize; i++) {
+                    String name = randomName(rnd, nameLength);
+                    names.add(name);
+                    w.write(name + ",C" + (i % 200) + "\n");
+                }
+            }
+            chronicle = File.createTempFile("bench-store", ".dat");
+            chronicle.delete();
+            store = new ChronicleMapLookup(chronicle, blocklistSize);
+            loader = new DataLoader(store, blocklistSize);
+            loader.enableDeletionIndex(MAX_EDITS, DELETION_PREFIX);
+            loader.enableQGramIndex(3, MAX_EDITS);
+            loader.enableMinHashIndex(20, 3, 3, MAX_EDITS);
+            loader.enableTokenIndex(TOKEN_MIN_SCORE);
+            loader.loadCsv(csv);
+            server = new LookupServer(store, loader);
+            engine = Stages.standardEngine(store, loader, MAX_EDITS, 2048, false);
+
+            for (int i = 0; i < QUERY_COUNT; i++) {
+                String q = rnd.nextDouble() < hitRatio
+                        ? names.get(rnd.nextInt(names.size()))
+                        : randomName(rnd, nameLength);
+                // clients send mixed case and stray whitespace
+                raw[i] = " " + q.toLowerCase() + "  ";
+                norm[i] = NormalizerUtil.normalize(raw[i]);
+                codes[i] = PhoneticIndexer.code(norm[i]);
+                prepared[i] = FuzzyMatcher.prepare(norm[i]);
+                neighbours[i] = names.get(rnd.nextInt(names.size()));
+                buckets.add(loader.phoneticCandidates(codes[i]));
+                codeLists.add(loader.phoneticCodes(norm[i]));
+                unions[i] = new IntList();
+                loader.phoneticIds(codeLists.get(i), unions[i]);
+                cache.put(norm[i], codes[i], 0);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            store.close();
+            chronicle.delete();
+            csv.delete();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+
+        int next() {
+            return i++ & (QUERY_COUNT - 1);
+        }
+    }
+
+    @Benchmark
+    public String normalize(Blocklist b, Cursor c) {
+        return NormalizerUtil.normalize(b.raw[c.next()]);
+    }
+
+    @Benchmark
+    public String phoneticCode(Blocklist b, Cursor c) {
+        return PhoneticIndexer.code(b.norm[c.next()]);
+    }
+
+    // both Double Metaphone codes, their buckets unioned: the bucket stage's candidate cost
+    @Benchmark
+    public int phoneticUnion(Blocklist b, Cursor c) {
+        IntList out = new IntList();
+        b.loader.phoneticIds(b.loader.phoneticCodes(b.norm[c.next()]), out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int levenshtein(Blocklist b, Cursor c) {
+        int i = c.next();
+        return FuzzyMatcher.levenshtein(b.norm[i], b.neighbours[i]);
+    }
+
+    @Benchmark
+    public int levenshteinBounded(Blocklist b, Cursor c) {
+        int i = c.next();
+        return FuzzyMatcher.levenshtein(b.norm[i], b.neighbours[i], MAX_EDITS);
+    }
+
+    @Benchmark
+    public int levenshteinBitParallel(Blocklist b, Cursor c) {
+        int i = c.next();
+        return b.prepared[i].distance(b.neighbours[i], MAX_EDITS);
+    }
+
+    @Benchmark
+    public double jaroWinkler(Blocklist b, Cursor c) {
+        int i = c.next();
+        return JaroWinkler.similarity(b.norm[i], b.neighbours[i]);
+    }
+
+    @Benchmark
+    public double jaroWinklerThreshold(Blocklist b, Cursor c) {
+        int i = c.next();
+        return JaroWinkler.similarity(b.norm[i], b.neighbours[i], JW_THRESHOLD);
+    }
+
+    @Benchmark
+    public String fuzzyMatchBucket(Blocklist b, Cursor c) {
+        int i = c.next();
+        return FuzzyMatcher.match(b.norm[i], b.buckets.get(i));
+    }
+
+    @Benchmark
+    public String fuzzyMatchBucketBounded(Blocklist b, Cursor c) {
+        int i = c.next();
+        return FuzzyMatcher.match(b.norm[i], b.buckets.get(i), MAX_EDITS);
+    }
+
+    // every id of the phonetic union, each behind the length and signature bounds
+    @Benchmark
+    public int bucketScan(Blocklist b, Cursor c) {
+        int i = c.next();
+        return FuzzyMatcher.closest(b.prepared[i], b.loader.names(), b.unions[i], MAX_EDITS);
+    }
+
+    // the same union, visiting only each length-sorted bucket's length window
+    @Benchmark
+    public int bucketScanWindowed(Blocklist b, Cursor c) {
+        int i = c.next();
+        return b.loader.phoneticClosest(b.prepared[i], b.codeLists.get(i), MAX_EDITS);
+    }
+
+    @Benchmark
+    public int deletionIndexClosest(Blocklist b, Cursor c) {
+        return b.loader.deletionIndex().closest(b.norm[c.next()]);
+    }
+
+    // A/B against fuzzyMatchBucketBounded: same scoring, LSH candidates instead of the phonetic bucket
+    @Benchmark
+    public String minHashMatchBounded(Blocklist b, Cursor c) {
+        int i = c.next();
+        return FuzzyMatcher.match(b.norm[i], b.loader.minHashCandidates(b.norm[i]), MAX_EDITS);
+    }
+
+    @Benchmark
+    public int qgramIndexClosest(Blocklist b, Cursor c) {
+        return b.loader.qgramIndex().closest(b.norm[c.next()]);
+    }
+
+    @Benchmark
+    public int tokenIndexClosest(Blocklist b, Cursor c) {
+        return b.loader.tokenIndex().closest(b.norm[c.next()]);
+    }
+
+    @Benchmark
+    public boolean bloomMightContain(Blocklist b, Cursor c) {
+        return b.loader.bloom().mightContain(b.norm[c.next()]);
+    }
+
+    @Benchmark
+    public String chronicleGet(Blocklist b, Cursor c) {
+        return b.store.get(b.norm[c.next()]);
+    }
+
+    @Benchmark
+    public String cacheHit(Blocklist b, Cursor c) {
+        return b.cache.get(b.norm[c.next()], 0);
+    }
+
+    // the server's engine plus generation pinning and metrics
+    @Benchmark
+    public String lookupCascade(Blocklist b, Cursor c) {
+        return b.server.lookup(b.raw[c.next()]);
+    }
+
+    @Benchmark
+    public String engineScreen(Blocklist b, Cursor c) {
+        return b.engine.screen(b.raw[c.next()]);
+    }
+
+    // random space-separated words with exactly len characters
+    static String randomName(Random r, int len) {
+        StringBuilder sb = new StringBuilder(len);
+        int word = 0;
+        while (sb.length() < len) {
+            if (word >= 3 + r.nextInt(6) && sb.length() < len - 1) {
+                sb.append(' ');
+                word = 0;
+            } else {
+                sb.append((char) ('A' + r.nextInt(26)));
+                word++;
+            }
+        }
+        return sb.toString();
+    }
+}
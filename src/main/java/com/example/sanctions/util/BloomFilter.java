@@ -0,0 +1,126 @@
+package com.example.sanctions.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cache-line blocked Bloom filter sized from a target false-positive rate.
+ * One murmur3 128-bit pass per key: the high bits of h1 pick a 512-bit block (8 longs, one
+ * cache line); h2 and the low bits of h1 generate the k bit positions inside it by double
+ * hashing, so a probe touches a single cache line and allocates nothing.
+ */
+public class BloomFilter {
+    private static final int MAGIC = 0x424C4F4D; // "BLOM"
+    private static final int VERSION = 1;
+    private static final long SEED = 0x5A17C0DEL;
+    private static final int BLOCK_LONGS = 8;    // 512 bits
+    private static final ThreadLocal<long[]> HASH = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final long[] bits;
+    private final long blocks;
+    private final int k;
+
+    public BloomFilter(long expectedEntries, double fpp) {
+        if (fpp <= 0 || fpp >= 1) throw new IllegalArgumentException("fpp must be in (0, 1): " + fpp);
+        long n = Math.max(1, expectedEntries);
+        double bitsPerKey = -Math.log(fpp) / (Math.log(2) * Math.log(2));
+        long blocks = Math.max(1, (long) Math.ceil(n * bitsPerKey / (BLOCK_LONGS * 64)));
+        if (blocks * BLOCK_LONGS > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("filter too large for " + expectedEntries + " entries at fpp " + fpp);
+        this.blocks = blocks;
+        this.k = (int) Math.max(1, Math.min(16, Math.round(bitsPerKey * Math.log(2))));
+        this.bits = new long[(int) (blocks * BLOCK_LONGS)];
+    }
+
+    private BloomFilter(long[] bits, int k) {
+        this.bits = bits;
+        this.blocks = bits.length / BLOCK_LONGS;
+        this.k = k;
+    }
+
+    /** Not thread-safe against concurrent adds; readers may run once loading is done. */
+    public void add(CharSequence s) {
+        long[] h = HASH.get();
+        Hashing.murmur3_128(s, SEED, h);
+        int base = block(h[0]);
+        long g = h[1], step = step(h[0]);
+        for (int i = 0; i < k; i++, g += step) {
+            int bit = (int) (g >>> 55);            // 0..511
+            bits[base + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(CharSequence s) {
+        long[] h = HASH.get();
+        Hashing.murmur3_128(s, SEED, h);
+        int base = block(h[0]);
+        long g = h[1], step = step(h[0]);
+        for (int i = 0; i < k; i++, g += step) {
+            int bit = (int) (g >>> 55);
+            if ((bits[base + (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    // multiply-shift range reduction of the high half of h1
+    private int block(long h1) {
+        return (int) Math.multiplyHigh(h1 & Long.MAX_VALUE, blocks << 1) * BLOCK_LONGS;
+    }
+
+    // keys sharing a block share the high bits of h1, so the stride must come from the low bits
+    private static long step(long h1) {
+        return Long.rotateLeft(h1, 32) | 1;
+    }
+
+    public long bitSize() { return bits.length * 64L; }
+
+    public int hashCount() { return k; }
+
+    public void save(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(k).putInt(bits.length).flip();
+            while (header.hasRemaining()) ch.write(header);
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            LongBuffer lb = buf.asLongBuffer();
+            for (int i = 0; i < bits.length; ) {
+                int n = Math.min(lb.capacity(), bits.length - i);
+                lb.clear();
+                lb.put(bits, i, n);
+                buf.clear().limit(n * 8);
+                while (buf.hasRemaining()) ch.write(buf);
+                i += n;
+            }
+        }
+    }
+
+    public static BloomFilter load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && ch.read(header) >= 0) ;
+            header.flip();
+            if (header.remaining() < 16 || header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException("not a bloom filter file: " + file);
+            int k = header.getInt();
+            long[] bits = new long[header.getInt()];
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < bits.length; ) {
+                buf.clear().limit(Math.min(buf.capacity(), (bits.length - i) * 8));
+                while (buf.hasRemaining()) {
+                    if (ch.read(buf) < 0) throw new IOException("truncated bloom filter file: " + file);
+                }
+                buf.flip();
+                int n = buf.remaining() / 8;
+                buf.asLongBuffer().get(bits, i, n);
+                i += n;
+            }
+            return new BloomFilter(bits, k);
+        }
+    }
+}
@@ -1,60 +1,503 @@
 package com.example.sanctions.util;
 
-import com.example.sanctions.store.ChronicleMapLookup;
+import com.example.sanctions.store.NameStore;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class DataLoader {
-    private final ChronicleMapLookup store;
+    private final NameStore store;
     private final Map<String, String> aliasMap = new HashMap<>(); // alias -> canonical
-    private final Map<String, List<String>> phoneticIndex = new HashMap<>();
-    private final BloomFilterSimple bloom;
+    private final PostingIndex.Builder phoneticBuilder = new PostingIndex.Builder();
+    private PostingIndex phoneticIndex;  // PhoneticIndexer.key(code) -> entry ids by name length, then file order
+    private byte[] phoneticLengths;      // by posting: the entry's name length, capped at 255 as in the bucket order
+    private long[] phoneticSignatures;   // by posting: the entry's NameSignature
+    private Set<PhoneticIndexer.Encoder> phoneticEncoders = EnumSet.noneOf(PhoneticIndexer.Encoder.class);
+    private Set<PhoneticIndexer.Encoder> quickEncoders = phoneticEncoders;   // all but Beider-Morse
+    private final ThreadLocal<int[][]> survivors = ThreadLocal.withInitial(() -> new int[2][64]); // ids, distances
+    private static final int SIMD_BATCH = Integer.getInteger("sanctions.fuzzy.simdBatch", 16);
+    private static final double BLOOM_FPP = 0.001;
+    private static final int LOAD_THREADS = Integer.getInteger("sanctions.load.threads",
+            Runtime.getRuntime().availableProcessors());
+    private static final long LOAD_CHUNK_BYTES = 8 << 20;
+    private final BloomFilter bloom;
+    private final NameArena names;       // entry id -> normalized name
+    private int deletionMaxEdits;
+    private int deletionPrefixLength;
+    private DeletionIndex deletionIndex;
+    private int qgramQ;
+    private int qgramMaxEdits;
+    private QGramIndex qgramIndex;
+    private int minHashBands;
+    private int minHashRows;
+    private int minHashShingle;
+    private int minHashMaxEdits;
+    private MinHashIndex minHashIndex;
+    private double tokenMinScore;
+    private TokenIndex tokenIndex;
 
-    public DataLoader(ChronicleMapLookup store, int expected) {
+    public DataLoader(NameStore store, int expected) {
         this.store = store;
-        this.bloom = new BloomFilterSimple(Math.max(1_000_000, expected * 2));
+        this.bloom = new BloomFilter(expected, BLOOM_FPP);
+        this.names = new NameArena(Math.min(expected, 1 << 20));
+    }
+
+    /**
+     * Posts every name under these phonetic encoders' codes too, on top of the primary and
+     * alternate Double Metaphone codes. Must be called before loading.
+     */
+    public void enablePhoneticEncoders(Set<PhoneticIndexer.Encoder> encoders) {
+        this.phoneticEncoders = encoders.isEmpty()
+                ? EnumSet.noneOf(PhoneticIndexer.Encoder.class) : EnumSet.copyOf(encoders);
+        this.quickEncoders = EnumSet.copyOf(phoneticEncoders);
+        quickEncoders.remove(PhoneticIndexer.Encoder.BEIDER_MORSE);
+    }
+
+    /**
+     * Builds a symmetric-deletion index over the loaded names at the end of loadCsv,
+     * so names within maxEdits are found across phonetic buckets.
+     */
+    public void enableDeletionIndex(int maxEdits, int prefixLength) {
+        this.deletionMaxEdits = maxEdits;
+        this.deletionPrefixLength = prefixLength;
+    }
+
+    /**
+     * Builds a q-gram inverted index over the loaded names at the end of loadCsv, used as a
+     * bounded-cost candidate generator when a phonetic bucket is empty or too big to scan.
+     */
+    public void enableQGramIndex(int q, int maxEdits) {
+        this.qgramQ = q;
+        this.qgramMaxEdits = maxEdits;
+    }
+
+    /**
+     * Builds a MinHash LSH index over character shingles at the end of loadCsv, an approximate
+     * alternative to the phonetic buckets (see minHashCandidates).
+     */
+    public void enableMinHashIndex(int bands, int rows, int shingle, int maxEdits) {
+        this.minHashBands = bands;
+        this.minHashRows = rows;
+        this.minHashShingle = shingle;
+        this.minHashMaxEdits = maxEdits;
+    }
+
+    /**
+     * Builds a token inverted index at the end of loadCsv, matching names regardless of token
+     * order with IDF-weighted token overlap of at least minScore (see TokenIndex).
+     */
+    public void enableTokenIndex(double minScore) {
+        this.tokenMinScore = minScore;
     }
 
     /**
      * CSV format: canonical,alias(optional) or canonical,country
      * We accept input lines: name,culture
+     * The file is memory-mapped and split into newline-aligned chunks that are parsed, normalized
+     * and phonetically encoded in parallel; the chunk results are then merged in file order, so
+     * entry ids and bucket order match a sequential load. Store puts run on LOAD_THREADS lanes
+     * picked by key hash, each taking its keys chunk after chunk in file order, so the culture kept
+     * for a repeated normalized name is still the last line's. Merging and the puts overlap the
+     * parsing of later chunks.
      */
     public void loadCsv(File csv) throws Exception {
-        try (BufferedReader br = new BufferedReader(new FileReader(csv))) {
-            String line;
-            int count = 0;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",", 2);
-                if (p.length < 2) continue;
-                String rawName = p[0].trim();
-                String culture = p[1].trim();
-                String norm = NormalizerUtil.normalize(rawName);
-                // store normalized name -> culture
-                store.put(norm, culture);
-                bloom.add(norm);
-                // phonetic index
-                String code = PhoneticIndexer.code(norm);
-                phoneticIndex.computeIfAbsent(code, k -> new ArrayList<>()).add(norm);
-                // add simple alias rules for common short forms (example)
-                if (norm.startsWith("MD ")) aliasMap.put("MD", norm);
-                if (norm.startsWith("MOH")) aliasMap.put("MOHD", norm);
-                count++;
-                if ((count & 0xFFFF) == 0) System.out.println("Loaded: " + count);
-            }
-            System.out.println("Load complete: " + count);
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(LOAD_THREADS);
+        int count = 0;
+        long bytes;
+        try (FileChannel ch = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+            bytes = ch.size();
+            // several chunks per thread so uneven chunks still balance, but no more than 8MB each
+            long chunkBytes = Math.max(64 << 10, Math.min(LOAD_CHUNK_BYTES, bytes / (LOAD_THREADS * 4L)));
+            long[] bounds = MappedCsv.chunks(ch, chunkBytes);
+            List<Future<Chunk>> parsed = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i], to = bounds[i + 1];
+                parsed.add(pool.submit(() -> parseChunk(ch, from, to)));
+            }
+            CompletableFuture<?>[] lanes = new CompletableFuture<?>[LOAD_THREADS];
+            Arrays.fill(lanes, CompletableFuture.completedFuture(null));
+            for (Future<Chunk> f : parsed) {
+                Chunk c = f.get();
+                for (int l = 0; l < lanes.length; l++) {
+                    int lane = l;
+                    lanes[l] = lanes[l].thenRunAsync(() -> putLane(c, lane, lanes.length), pool);
+                }
+                for (int i = 0, k = 0; i < c.names.size(); i++) {
+                    String norm = c.names.get(i);
+                    // bloom adds share words across keys, so they stay on this thread
+                    bloom.add(norm);
+                    int id = names.add(norm);
+                    for (; k < c.keyEnds[i]; k++) phoneticBuilder.add(c.keys[k], id);
+                    // add simple alias rules for common short forms (example)
+                    if (norm.startsWith("MD ")) aliasMap.put("MD", norm);
+                    if (norm.startsWith("MOH")) aliasMap.put("MOHD", norm);
+                }
+                count += c.names.size();
+            }
+            CompletableFuture.allOf(lanes).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            pool.shutdownNow();
+        }
+        names.trim();
+        phoneticIndex = phoneticBuilder.build(id -> Math.min(255, names.length(id)));
+        // copied in posting order, so a bucket scan reads them sequentially instead of per entry
+        phoneticLengths = new byte[phoneticIndex.postingCount()];
+        phoneticSignatures = new long[phoneticIndex.postingCount()];
+        for (int i = 0; i < phoneticLengths.length; i++) {
+            int id = phoneticIndex.id(i);
+            phoneticLengths[i] = (byte) Math.min(255, names.length(id));
+            phoneticSignatures[i] = names.signature(id);
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Load complete: %d (%.0f rows/s, %.1f MB/s, %d threads)%n",
+                count, count / secs, bytes / 1e6 / secs, LOAD_THREADS);
+        System.out.printf("Name arena: %.1f MB, phonetic index (dm%s): %,d codes, %.2f postings/name, %.1f MB%n",
+                names.memoryBytes() / 1e6, phoneticEncoders.isEmpty() ? "" : " + " + phoneticEncoders,
+                phoneticIndex.keyCount(), phoneticIndex.postingCount() / (double) Math.max(1, count),
+                (phoneticIndex.memoryBytes() + phoneticLengths.length + phoneticSignatures.length * 8L) / 1e6);
+        if (deletionMaxEdits > 0) {
+            long t0 = System.nanoTime();
+            deletionIndex = DeletionIndex.build(names, deletionMaxEdits, deletionPrefixLength);
+            PostingIndex p = deletionIndex.postings();
+            System.out.printf("Deletion index: %,d keys, %,d postings, %.1f MB in %d ms%n",
+                    p.keyCount(), p.postingCount(), p.memoryBytes() / 1e6, (System.nanoTime() - t0) / 1_000_000);
+        }
+        if (qgramQ > 0) {
+            long t0 = System.nanoTime();
+            qgramIndex = QGramIndex.build(names, qgramQ, qgramMaxEdits);
+            PostingIndex p = qgramIndex.postings();
+            System.out.printf("Q-gram index: %,d grams, %,d postings, %.1f MB in %d ms%n",
+                    p.keyCount(), p.postingCount(), p.memoryBytes() / 1e6, (System.nanoTime() - t0) / 1_000_000);
+        }
+        if (minHashBands > 0) {
+            long t0 = System.nanoTime();
+            minHashIndex = MinHashIndex.build(names, minHashBands, minHashRows, minHashShingle, minHashMaxEdits);
+            PostingIndex p = minHashIndex.postings();
+            System.out.printf("MinHash index (b=%d r=%d, P(0.3)=%.3f P(0.5)=%.3f P(0.7)=%.3f): %,d keys, %.1f MB in %d ms%n",
+                    minHashBands, minHashRows, minHashIndex.probability(0.3), minHashIndex.probability(0.5),
+                    minHashIndex.probability(0.7), p.keyCount(), p.memoryBytes() / 1e6, (System.nanoTime() - t0) / 1_000_000);
         }
+        if (tokenMinScore > 0) {
+            long t0 = System.nanoTime();
+            tokenIndex = TokenIndex.build(names, tokenMinScore);
+            PostingIndex p = tokenIndex.postings();
+            System.out.printf("Token index: %,d tokens, %,d postings (largest %,d), %.1f MB in %d ms%n",
+                    p.keyCount(), p.postingCount(), tokenIndex.maxPostings(), tokenIndex.memoryBytes() / 1e6,
+                    (System.nanoTime() - t0) / 1_000_000);
+        }
+    }
+
+    private static final class Chunk {
+        final List<String> names = new ArrayList<>();
+        final List<String> cultures = new ArrayList<>();
+        long[] keys = new long[2048];      // PhoneticIndexer.key of each code, name after name
+        int keyCount;
+        int[] keyEnds = new int[1024];     // name i's keys end at keyEnds[i]
+    }
+
+    // store normalized name -> culture for the chunk's names whose hash picks this lane
+    private void putLane(Chunk c, int lane, int lanes) {
+        for (int i = 0; i < c.names.size(); i++) {
+            String norm = c.names.get(i);
+            if (Math.floorMod(norm.hashCode(), lanes) == lane) store.put(norm, c.cultures.get(i));
+        }
+    }
+
+    // parse, normalize and encode one chunk; runs on the load pool
+    private Chunk parseChunk(FileChannel ch, long start, long end) throws Exception {
+        Chunk c = new Chunk();
+        MappedCsv.forEachLine(ch, start, end, (buf, off, len) -> {
+            int comma = MappedCsv.indexOf(buf, off, len, (byte) ',');
+            if (comma < 0) return;
+            String rawName = new String(buf, off, comma - off, StandardCharsets.UTF_8).trim();
+            String culture = new String(buf, comma + 1, off + len - comma - 1, StandardCharsets.UTF_8).trim();
+            String norm = NormalizerUtil.normalize(rawName);
+            for (String code : PhoneticIndexer.codes(norm, phoneticEncoders)) {
+                if (c.keyCount == c.keys.length) c.keys = Arrays.copyOf(c.keys, c.keyCount << 1);
+                c.keys[c.keyCount++] = PhoneticIndexer.key(code);
+            }
+            int i = c.names.size();
+            if (i == c.keyEnds.length) c.keyEnds = Arrays.copyOf(c.keyEnds, i << 1);
+            c.keyEnds[i] = c.keyCount;
+            c.names.add(norm);
+            c.cultures.add(culture);
+        });
+        return c;
     }
 
     public Optional<String> lookupAlias(String name) {
         return Optional.ofNullable(aliasMap.get(name));
     }
 
+    /** Names in code's phonetic bucket, decoded from the arena; see phoneticIds. */
     public List<String> phoneticCandidates(String code) {
-        return phoneticIndex.getOrDefault(code, Collections.emptyList());
+        return names(phoneticIds(code));
+    }
+
+    /** Entry ids in code's phonetic bucket, by name length then file order: one contiguous run of the postings. */
+    public IntList phoneticIds(String code) {
+        if (phoneticIndex == null) return new IntList(1);
+        int b = phoneticIndex.find(PhoneticIndexer.key(code));
+        IntList out = new IntList(phoneticIndex.size(b));
+        phoneticIndex.collectBucket(b, out);
+        return out;
+    }
+
+    /** Blocking codes of a normalized name under this loader's encoders, primary first. */
+    public List<String> phoneticCodes(String norm) {
+        return PhoneticIndexer.codes(norm, phoneticEncoders);
+    }
+
+    /**
+     * phoneticCodes without the Beider-Morse ones, which take about a millisecond per name to
+     * encode against microseconds for the rest; the same list when Beider-Morse is not enabled.
+     */
+    public List<String> quickPhoneticCodes(String norm) {
+        return PhoneticIndexer.codes(norm, quickEncoders);
+    }
+
+    /** Whether names are also posted under Beider-Morse codes. */
+    public boolean beiderMorse() {
+        return phoneticEncoders.contains(PhoneticIndexer.Encoder.BEIDER_MORSE);
+    }
+
+    /**
+     * Appends the union of the codes' buckets to out, each id once: the first code's bucket in
+     * bucket order, then ids new in the next. Returns the postings read, duplicates included.
+     * Membership in the earlier buckets is a binary search on their (length, id) order, so the
+     * union needs no scratch sized to the blocklist.
+     */
+    public int phoneticIds(List<String> codes, IntList out) {
+        if (phoneticIndex == null) return 0;
+        int[] buckets = new int[codes.size()];
+        int read = 0;
+        for (int c = 0; c < buckets.length; c++) {
+            int b = buckets[c] = phoneticIndex.find(PhoneticIndexer.key(codes.get(c)));
+            for (int i = phoneticIndex.start(b), end = phoneticIndex.end(b); i < end; i++) {
+                if (c == 0 || !inBuckets(buckets, c, postingKey(i))) out.add(phoneticIndex.id(i));
+            }
+            read += phoneticIndex.size(b);
+        }
+        return read;
+    }
+
+    // whether one of buckets[0 .. n) holds the posting with this postingKey
+    private boolean inBuckets(int[] buckets, int n, long key) {
+        for (int c = 0; c < n; c++) {
+            int lo = phoneticIndex.start(buckets[c]), hi = phoneticIndex.end(buckets[c]) - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                long k = postingKey(mid);
+                if (k < key) lo = mid + 1;
+                else if (k > key) hi = mid - 1;
+                else return true;
+            }
+        }
+        return false;
+    }
+
+    /** Postings across the codes' buckets, an id in several counted in each. */
+    public int phoneticPostings(List<String> codes) {
+        if (phoneticIndex == null) return 0;
+        int read = 0;
+        for (String code : codes) read += phoneticIndex.size(phoneticIndex.find(PhoneticIndexer.key(code)));
+        return read;
+    }
+
+    /**
+     * Size of the union of the codes' buckets, as phoneticIds would build it, counted by merging
+     * the buckets in their (length, id) order instead of collecting ids. Reads every posting, so
+     * only explain calls it; lookups use phoneticPostings.
+     */
+    public int phoneticUnionSize(List<String> codes) {
+        if (phoneticIndex == null || codes.isEmpty()) return 0;
+        if (codes.size() == 1) return phoneticIndex.size(phoneticIndex.find(PhoneticIndexer.key(codes.get(0))));
+        int k = codes.size();
+        int[] at = new int[k], end = new int[k];
+        for (int c = 0; c < k; c++) {
+            int b = phoneticIndex.find(PhoneticIndexer.key(codes.get(c)));
+            at[c] = phoneticIndex.start(b);
+            end[c] = phoneticIndex.end(b);
+        }
+        int count = 0;
+        while (true) {
+            long next = Long.MAX_VALUE;
+            for (int c = 0; c < k; c++) if (at[c] < end[c]) next = Math.min(next, postingKey(at[c]));
+            if (next == Long.MAX_VALUE) return count;
+            count++;
+            for (int c = 0; c < k; c++) if (at[c] < end[c] && postingKey(at[c]) == next) at[c]++;
+        }
+    }
+
+    // the order of a length-sorted phonetic bucket
+    private long postingKey(int i) {
+        return (long) (phoneticLengths[i] & 0xFF) << 32 | phoneticIndex.id(i);
+    }
+
+    /**
+     * The id in the union of the codes' buckets (see phoneticIds) closest to q within maxEdits,
+     * or -1. Codes are scanned in order and a later code's bucket only wins with a strictly
+     * closer id; within one bucket a tie goes to the lower id, even when it comes later in the
+     * bucket's (length, id) order. Only the run of each bucket whose lengths are within maxEdits
+     * of the query's is visited, and it narrows as the best distance drops.
+     * With the Vector API kernel, a run with at least SIMD_BATCH postings left after the length
+     * and signature bounds is scored in one FuzzyMatcher.distances batch.
+     */
+    public int phoneticClosest(FuzzyMatcher.Query q, List<String> codes, int maxEdits) {
+        return phoneticClosest(q, codes, maxEdits, null);
+    }
+
+    /** phoneticClosest, counting the postings of the buckets it opened into scan unless that is null. */
+    public int phoneticClosest(FuzzyMatcher.Query q, List<String> codes, int maxEdits, ScanStats scan) {
+        if (phoneticIndex == null) return -1;
+        int m = q.text().length(), best = -1, bestCode = -1, min = maxEdits + 1;
+        int read = 0, pruned = 0, scored = 0;
+        long sig = q.signature();
+        boolean simd = FuzzyMatcher.simd(q, names);
+        for (int c = 0; c < codes.size() && min > 0; c++) {
+            int b = phoneticIndex.find(PhoneticIndexer.key(codes.get(c)));
+            int end = phoneticIndex.end(b);
+            read += phoneticIndex.size(b);
+            if (simd) {
+                int[][] scratch = survivors.get();
+                int n = 0;
+                for (int i = lengthFrom(b, m - maxEdits); i < end; i++) {
+                    int len = phoneticLengths[i] & 0xFF;
+                    if (len - m > min) break;
+                    if (m - len > min || NameSignature.lowerBound(sig, phoneticSignatures[i]) > min) { pruned++; continue; }
+                    if (n == scratch[0].length) { scratch[0] = Arrays.copyOf(scratch[0], n << 1); scratch[1] = new int[n << 1]; }
+                    scratch[0][n++] = phoneticIndex.id(i);
+                }
+                // scored against the bound at the start of the run, then taken in order as below
+                int[] ids = scratch[0], dist = scratch[1];
+                if (n >= SIMD_BATCH) { FuzzyMatcher.distances(q, names, ids, 0, n, min, dist); scored += n; }
+                for (int k = 0; k < n && min > 0; k++) {
+                    boolean tie = c == bestCode && ids[k] < best;
+                    if (n < SIMD_BATCH) scored++;
+                    int d = n >= SIMD_BATCH ? dist[k] : q.distance(names, ids[k], tie ? min : min - 1);
+                    if (d < min || d == min && tie) { min = d; best = ids[k]; bestCode = c; }
+                }
+                continue;
+            }
+            for (int i = lengthFrom(b, m - maxEdits); i < end && min > 0; i++) {
+                int len = phoneticLengths[i] & 0xFF;
+                if (len - m > min) break;
+                int id = phoneticIndex.id(i);
+                // a tie only displaces a later id of the same code's bucket
+                boolean tie = c == bestCode && id < best;
+                int bound = tie ? min : min - 1;
+                if (m - len > bound || NameSignature.lowerBound(sig, phoneticSignatures[i]) > bound) { pruned++; continue; }
+                scored++;
+                int d = q.distance(names, id, bound);
+                if (d < min || d == min && tie) { min = d; best = id; bestCode = c; }
+            }
+        }
+        if (scan != null) scan.add(read, pruned, scored);
+        return best;
+    }
+
+    // first position in bucket b whose name is at least len long
+    private int lengthFrom(int b, int len) {
+        int lo = phoneticIndex.start(b), hi = phoneticIndex.end(b);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if ((phoneticLengths[mid] & 0xFF) < len) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Offers the best matches for a normalized name to out, scored in [0, 1]: 1 - d / max length
+     * for names within maxEdits edits (phonetic buckets, or the q-gram index when they are empty
+     * or larger than maxBucket, plus the deletion index), and the token score for token index
+     * matches. An id found both ways keeps the higher score.
+     */
+    public void rank(String norm, int maxEdits, int maxBucket, TopK out) {
+        IntList cand = new IntList();
+        phoneticIds(phoneticCodes(norm), cand);
+        if (qgramIndex != null && (cand.isEmpty() || cand.size() > maxBucket)) cand = qgramIndex.candidates(norm);
+        if (deletionIndex != null) {
+            IntList more = deletionIndex.candidates(norm);
+            cand.addAll(more.toArray(), 0, more.size());
+        }
+        rankByDistance(FuzzyMatcher.prepare(norm), cand, maxEdits, out);
+        if (tokenIndex != null) tokenIndex.rank(norm, out);
+    }
+
+    // visits candidates by length difference, the lower bound on their distance, so scoring
+    // stops at the first length group that cannot beat the kth score; within a group each
+    // distance is cut off at what would still beat it
+    private void rankByDistance(FuzzyMatcher.Query q, IntList cand, int maxEdits, TopK out) {
+        int m = q.text().length();
+        int[] starts = new int[maxEdits + 2];
+        for (int i = 0; i < cand.size(); i++) {
+            int delta = Math.abs(names.length(cand.get(i)) - m);
+            if (delta <= maxEdits) starts[delta + 1]++;
+        }
+        for (int d = 0; d <= maxEdits; d++) starts[d + 1] += starts[d];
+        int[] byDelta = new int[starts[maxEdits + 1]];
+        int[] fill = Arrays.copyOf(starts, maxEdits + 1);
+        for (int i = 0; i < cand.size(); i++) {
+            int delta = Math.abs(names.length(cand.get(i)) - m);
+            if (delta <= maxEdits) byDelta[fill[delta]++] = cand.get(i);
+        }
+        for (int delta = 0; delta <= maxEdits; delta++) {
+            if (1 - delta / (double) (m + delta) < out.threshold()) break;
+            for (int i = starts[delta]; i < starts[delta + 1]; i++) {
+                int id = byDelta[i];
+                int maxLen = Math.max(m, names.length(id));
+                double threshold = out.threshold();
+                int allowed = threshold < 0 ? maxEdits : Math.min(maxEdits, (int) Math.floor((1 - threshold) * maxLen + 1e-9));
+                if (allowed < delta) continue;
+                int dist = q.distance(names, id, allowed);
+                if (dist <= allowed) out.offer(id, 1 - dist / (double) maxLen);
+            }
+        }
+    }
+
+    public String name(int id) { return names.name(id); }
+
+    public NameArena names() { return names; }
+
+    public int size() { return names.size(); }
+
+    /** null unless enableDeletionIndex was called before loading */
+    public DeletionIndex deletionIndex() { return deletionIndex; }
+
+    /** null unless enableQGramIndex was called before loading */
+    public QGramIndex qgramIndex() { return qgramIndex; }
+
+    /** null unless enableTokenIndex was called before loading */
+    public TokenIndex tokenIndex() { return tokenIndex; }
+
+    /** null unless enableMinHashIndex was called before loading */
+    public MinHashIndex minHashIndex() { return minHashIndex; }
+
+    /** Names sharing a MinHash band with norm; same role as phoneticCandidates. */
+    public List<String> minHashCandidates(String norm) {
+        return names(minHashIds(norm));
+    }
+
+    /** Entry ids sharing a MinHash band with norm, ascending. */
+    public IntList minHashIds(String norm) {
+        return minHashIndex == null ? new IntList(1) : minHashIndex.candidates(norm);
+    }
+
+    private List<String> names(IntList ids) {
+        List<String> out = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) out.add(names.name(ids.get(i)));
+        return out;
     }
 
-    public BloomFilterSimple bloom() { return bloom; }
+    public BloomFilter bloom() { return bloom; }
 }
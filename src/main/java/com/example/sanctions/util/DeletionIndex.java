@@ -0,0 +1,88 @@
+package com.example.sanctions.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Symmetric-deletion (SymSpell style) index for edit-distance candidate generation.
+ * Every variant of a name's prefix with up to maxEdits chars deleted is hashed to a 64-bit
+ * key and posted to the name's entry id. A query generates the same variants and probes
+ * them, so names within maxEdits are found without scanning a bucket.
+ */
+public class DeletionIndex implements FuzzyIndex {
+    private final NameArena names;
+    private final int maxEdits;
+    private final int prefixLength;
+    private final PostingIndex postings;
+
+    private DeletionIndex(NameArena names, int maxEdits, int prefixLength, PostingIndex postings) {
+        this.names = names;
+        this.maxEdits = maxEdits;
+        this.prefixLength = prefixLength;
+        this.postings = postings;
+    }
+
+    /** names are normalized entries addressed by entry id. */
+    public static DeletionIndex build(NameArena names, int maxEdits, int prefixLength) {
+        PostingIndex.Builder b = new PostingIndex.Builder();
+        char[] buf = new char[prefixLength];
+        for (int id = 0; id < names.size(); id++) {
+            final int entry = id;
+            int len = prefix(names.name(id), buf, prefixLength);
+            deletions(buf, len, 0, maxEdits, key -> b.add(key, entry));
+        }
+        return new DeletionIndex(names, maxEdits, prefixLength, b.build());
+    }
+
+    @Override
+    public void search(String query, IntList out) {
+        IntList cand = candidates(query);
+        FuzzyMatcher.Query q = FuzzyMatcher.prepare(query);
+        for (int i = 0; i < cand.size(); i++) {
+            int id = cand.get(i);
+            if (q.distance(names, id, maxEdits) <= maxEdits) out.add(id);
+        }
+    }
+
+    @Override
+    public int closest(String query, ScanStats scan) {
+        return FuzzyMatcher.closest(FuzzyMatcher.prepare(query), names, candidates(query), maxEdits, scan);
+    }
+
+    /** Unverified candidate ids sharing a deletion variant with query, ascending and distinct. */
+    @Override
+    public IntList candidates(String query) {
+        IntList out = new IntList();
+        char[] buf = new char[prefixLength];
+        int len = prefix(query, buf, prefixLength);
+        deletions(buf, len, 0, maxEdits, key -> postings.collect(key, out));
+        out.sortUnique();
+        return out;
+    }
+
+    @Override
+    public int maxEdits() { return maxEdits; }
+
+    public int prefixLength() { return prefixLength; }
+
+    public PostingIndex postings() { return postings; }
+
+    private static int prefix(String s, char[] buf, int prefixLength) {
+        int len = Math.min(s.length(), prefixLength);
+        s.getChars(0, len, buf, 0);
+        return len;
+    }
+
+    // emits buf[0..len) and every variant with up to edits more chars deleted at positions >= from
+    private static void deletions(char[] buf, int len, int from, int edits, LongConsumer sink) {
+        sink.accept(Hashing.hash64(buf, 0, len));
+        if (edits == 0) return;
+        for (int i = from; i < len; i++) {
+            if (i > from && buf[i] == buf[i - 1]) continue; // same variant as deleting i - 1
+            char removed = buf[i];
+            System.arraycopy(buf, i + 1, buf, i, len - i - 1);
+            deletions(buf, len - 1, i, edits - 1, sink);
+            System.arraycopy(buf, i, buf, i + 1, len - i - 1);
+            buf[i] = removed;
+        }
+    }
+}
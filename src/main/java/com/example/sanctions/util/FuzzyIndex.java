@@ -0,0 +1,20 @@
+package com.example.sanctions.util;
+
+/**
+ * Candidate generator over DataLoader entry ids whose hits are verified by edit distance.
+ */
+public interface FuzzyIndex {
+    /** Adds the ids of all entries within maxEdits() of the normalized query to out, ascending. */
+    void search(String query, IntList out);
+
+    /** Unverified candidate ids for query, ascending and distinct. */
+    IntList candidates(String query);
+
+    /** Entry id of the closest entry within maxEdits(), or -1. */
+    default int closest(String query) { return closest(query, null); }
+
+    /** closest, counting its candidates into scan unless that is null. */
+    int closest(String query, ScanStats scan);
+
+    int maxEdits();
+}
@@ -1,23 +1,257 @@
 package com.example.sanctions.util;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 public class FuzzyMatcher {
+    // two DP rows per thread, grown on demand
+    private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(() -> new int[2][32]);
+    // ids that pass the prefilters and their positions, see distances()
+    private static final ThreadLocal<int[][]> SURVIVORS = ThreadLocal.withInitial(() -> new int[2][64]);
+
     public static int levenshtein(String s1, String s2){
         s1 = s1==null?"":s1; s2 = s2==null?"":s2;
-        int[] prev = new int[s2.length()+1];
-        for(int j=0;j<=s2.length();j++) prev[j]=j;
-        for(int i=1;i<=s1.length();i++){
-            int[] curr = new int[s2.length()+1]; curr[0]=i;
-            for(int j=1;j<=s2.length();j++){
-                int cost = s1.charAt(i-1)==s2.charAt(j-1)?0:1;
-                curr[j] = Math.min(Math.min(curr[j-1]+1, prev[j]+1), prev[j-1]+cost);
+        return levenshtein(s1, s2, Math.max(s1.length(), s2.length()));
+    }
+
+    /**
+     * Levenshtein distance restricted to the diagonal band of width 2*maxDistance+1.
+     * Returns maxDistance+1 as soon as the distance is known to exceed maxDistance.
+     */
+    public static int levenshtein(CharSequence s1, CharSequence s2, int maxDistance){
+        if (s1.length() > s2.length()) { CharSequence t = s1; s1 = s2; s2 = t; }
+        int n = s1.length(), m = s2.length();
+        if (maxDistance < 0) return 0;
+        maxDistance = Math.min(maxDistance, m);
+        if (m - n > maxDistance) return maxDistance + 1;
+        if (n == 0) return m;
+
+        int[][] rows = ROWS.get();
+        if (rows[0].length <= n) { rows[0] = new int[n + 16]; rows[1] = new int[n + 16]; }
+        int[] prev = rows[0], curr = rows[1];
+        final int inf = Integer.MAX_VALUE - 1;
+        int boundary = Math.min(n, maxDistance) + 1;
+        for (int i = 0; i < boundary; i++) prev[i] = i;
+        Arrays.fill(prev, boundary, n + 1, inf);
+        Arrays.fill(curr, 0, n + 1, inf);
+
+        for (int j = 1; j <= m; j++) {
+            char c = s2.charAt(j - 1);
+            curr[0] = j;
+            int from = Math.max(1, j - maxDistance);
+            int to = Math.min(n, j + maxDistance);
+            if (from > 1) curr[from - 1] = inf;
+            int bandMin = from == 1 ? j : inf;
+            for (int i = from; i <= to; i++) {
+                int d = s1.charAt(i - 1) == c
+                        ? prev[i - 1]
+                        : 1 + Math.min(Math.min(curr[i - 1], prev[i]), prev[i - 1]);
+                curr[i] = d;
+                if (d < bandMin) bandMin = d;
             }
-            prev = curr;
+            if (bandMin > maxDistance) return maxDistance + 1;
+            int[] t = prev; prev = curr; curr = t;
         }
-        return prev[s2.length()];
+        return Math.min(prev[n], maxDistance + 1);
     }
+
     public static String match(String name, List<String> candidates){
-        int min = Integer.MAX_VALUE; String best = null;
-        for(String c: candidates){ int d = levenshtein(name.toLowerCase(), c.toLowerCase()); if(d<min){min=d;best=c;} }
+        return match(name, candidates, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Closest candidate within maxDistance edits, or null, compared case-insensitively: both
+     * sides are folded to upper case, which leaves DataLoader's normalized names uncopied.
+     * The best distance so far tightens the bound for the remaining candidates.
+     */
+    public static String match(String name, List<String> candidates, int maxDistance){
+        Query q = prepare(name.toUpperCase(Locale.ROOT));
+        int min = maxDistance == Integer.MAX_VALUE ? maxDistance : maxDistance + 1; String best = null;
+        for(String c: candidates){
+            int d = q.distance(c.toUpperCase(Locale.ROOT), min - 1);
+            if(d<min){min=d;best=c; if(d==0) break;}
+        }
         return best;
     }
-}
\ No newline at end of file
+
+    /** Like match, over arena entry ids: the first closest id within maxDistance, or -1. */
+    public static int closest(Query q, NameArena names, IntList ids, int maxDistance){
+        return closest(q, names, ids, maxDistance, null);
+    }
+
+    /** closest, counting what it pruned and scored into scan unless that is null. */
+    public static int closest(Query q, NameArena names, IntList ids, int maxDistance, ScanStats scan){
+        int best = -1, min = maxDistance + 1, pruned = 0, scored = 0;
+        for(int i=0;i<ids.size() && min > 0;i++){
+            int id = ids.get(i);
+            if(q.rejects(names, id, min - 1)){ pruned++; continue; }
+            scored++;
+            int d = q.distance(names, id, min - 1);
+            if(d<min){min=d;best=id;}
+        }
+        if(scan != null) scan.add(ids.size(), pruned, scored);
+        return best;
+    }
+
+    /**
+     * out[i - from] = q.distance(names, ids[i], maxDistance) for every i in [from, to), batched
+     * across SIMD lanes by VectorScorer when it is available (see simd()) and the scalar loop
+     * otherwise. Entries the length and signature bounds reject are left out of the batches.
+     */
+    public static void distances(Query q, NameArena names, int[] ids, int from, int to, int maxDistance, int[] out){
+        if(!simd(q, names) || maxDistance < 0){
+            for(int i=from;i<to;i++) out[i - from] = q.distance(names, ids[i], maxDistance);
+            return;
+        }
+        int[][] scratch = SURVIVORS.get();
+        if(scratch[0].length < to - from){ scratch[0] = new int[to - from]; scratch[1] = new int[to - from]; }
+        int[] kept = scratch[0], at = scratch[1];
+        int n = 0;
+        for(int i=from;i<to;i++){
+            int id = ids[i];
+            out[i - from] = maxDistance + 1;
+            if(Math.abs(names.length(id) - q.m) > maxDistance
+                    || NameSignature.lowerBound(q.signature, names.signature(id)) > maxDistance) continue;
+            kept[n] = id;
+            at[n++] = i - from;
+        }
+        VectorScorer.distances(q.peq, q.m, names, kept, 0, n, maxDistance, kept);
+        for(int k=0;k<n;k++) out[at[k]] = kept[k];
+    }
+
+    /**
+     * True when the Vector API kernel scores this query against this arena: -Dsanctions.fuzzy.simd=true,
+     * jdk.incubator.vector is in the boot layer (java --add-modules jdk.incubator.vector), the arena
+     * is ASCII and the query 1 to 64 chars. Off by default: after the length and signature bounds
+     * few candidates are left to batch, and the kernel runs interpreted until C2 compiles it.
+     */
+    public static boolean simd(Query q, NameArena names){
+        return SIMD && names.isAscii() && q.m > 0 && q.m <= 64;
+    }
+
+    private static final boolean SIMD = Boolean.getBoolean("sanctions.fuzzy.simd")
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    /** Precomputes the query side once so each candidate costs O(candidate length) word operations. */
+    public static Query prepare(String query){
+        return new Query(query == null ? "" : query);
+    }
+
+    /**
+     * Myers/Hyyro bit-parallel Levenshtein for queries up to 64 chars (all normalized names are,
+     * see NormalizerUtil.MAX_LENGTH). Longer queries fall back to the banded DP.
+     */
+    public static final class Query {
+        private final String text;
+        private final int m;
+        private final long[] peq = new long[128];   // ASCII char -> bitmask of its positions in the query
+        private final char[] otherChars;            // non-ASCII query chars, usually empty
+        private final long[] otherPeq;
+        private final long signature;
+
+        private Query(String text){
+            this.text = text;
+            this.m = text.length();
+            this.signature = NameSignature.of(text);
+            int others = 0;
+            for(int i=0;i<m;i++) if(text.charAt(i) >= 128) others++;
+            otherChars = new char[others];
+            otherPeq = new long[others];
+            if(m > 64) return;
+            int o = 0;
+            for(int i=0;i<m;i++){
+                char c = text.charAt(i);
+                if(c < 128){ peq[c] |= 1L << i; continue; }
+                int k = 0;
+                while(k < o && otherChars[k] != c) k++;
+                if(k == o) otherChars[o++] = c;
+                otherPeq[k] |= 1L << i;
+            }
+        }
+
+        public String text(){ return text; }
+
+        /** NameSignature of the query. */
+        public long signature(){ return signature; }
+
+        public int distance(CharSequence candidate){
+            return distance(candidate, Math.max(m, candidate.length()));
+        }
+
+        /** Same contract as {@link FuzzyMatcher#levenshtein(CharSequence, CharSequence, int)}. */
+        public int distance(CharSequence candidate, int maxDistance){
+            int n = candidate.length();
+            if(maxDistance < 0) return 0;
+            if(m > 64) return levenshtein(text, candidate, maxDistance);
+            if(Math.abs(n - m) > maxDistance) return maxDistance + 1;
+            if(m == 0) return n;
+
+            long pv = -1L, mv = 0L;
+            long last = 1L << (m - 1);
+            int score = m;
+            for(int j=0;j<n;j++){
+                char c = candidate.charAt(j);
+                long eq = c < 128 ? peq[c] : other(c);
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if((ph & last) != 0) score++;
+                else if((mh & last) != 0) score--;
+                // the bottom row moves by at most one per remaining column
+                if(score - (n - j - 1) > maxDistance) return maxDistance + 1;
+                ph = (ph << 1) | 1L;
+                mh <<= 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+            }
+            return Math.min(score, maxDistance + 1);
+        }
+
+        /** True when the length or signature bound alone puts entry id beyond maxDistance. */
+        public boolean rejects(NameArena names, int id, int maxDistance){
+            if(maxDistance < 0) return false;
+            return names.isAscii() && Math.abs(names.length(id) - m) > maxDistance
+                    || NameSignature.lowerBound(signature, names.signature(id)) > maxDistance;
+        }
+
+        /**
+         * distance(names.name(id), maxDistance), read straight from the arena's bytes when they
+         * are ASCII. Entries whose length or signature bound already exceeds maxDistance are
+         * rejected without running the DP.
+         */
+        public int distance(NameArena names, int id, int maxDistance){
+            if(maxDistance < 0) return 0;
+            int n = names.length(id);
+            if(names.isAscii() && Math.abs(n - m) > maxDistance) return maxDistance + 1;
+            if(NameSignature.lowerBound(signature, names.signature(id)) > maxDistance) return maxDistance + 1;
+            if(!names.isAscii() || m > 64) return distance(names.name(id), maxDistance);
+            byte[] data = names.data();
+            int off = names.offset(id);
+            if(m == 0) return n;
+
+            long pv = -1L, mv = 0L;
+            long last = 1L << (m - 1);
+            int score = m;
+            for(int j=0;j<n;j++){
+                long eq = peq[data[off + j]];
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if((ph & last) != 0) score++;
+                else if((mh & last) != 0) score--;
+                if(score - (n - j - 1) > maxDistance) return maxDistance + 1;
+                ph = (ph << 1) | 1L;
+                mh <<= 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+            }
+            return Math.min(score, maxDistance + 1);
+        }
+
+        private long other(char c){
+            for(int k=0;k<otherChars.length;k++) if(otherChars[k] == c) return otherPeq[k];
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.sanctions.util;
+
+/**
+ * Allocation-free 64-bit hashing of char ranges, stable across JVM runs.
+ */
+public class Hashing {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    public static long hash64(CharSequence s) {
+        long h = SEED ^ s.length();
+        for (int i = 0, n = s.length(); i < n; i++) h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        return fmix64(h);
+    }
+
+    public static long hash64(char[] a, int off, int len) {
+        long h = SEED ^ len;
+        for (int i = off, end = off + len; i < end; i++) h = (h ^ a[i]) * 0x100000001B3L;
+        return fmix64(h);
+    }
+
+    /**
+     * MurmurHash3 x64 128-bit over the UTF-16LE bytes of s, without encoding it.
+     * Writes h1 to out[0] and h2 to out[1].
+     */
+    public static void murmur3_128(CharSequence s, long seed, long[] out) {
+        int len = s.length();
+        int blocks = len >>> 3;                // 8 chars = 16 bytes per block
+        long h1 = seed, h2 = seed;
+        for (int b = 0; b < blocks; b++) {
+            int i = b << 3;
+            long k1 = s.charAt(i) | (long) s.charAt(i + 1) << 16 | (long) s.charAt(i + 2) << 32 | (long) s.charAt(i + 3) << 48;
+            long k2 = s.charAt(i + 4) | (long) s.charAt(i + 5) << 16 | (long) s.charAt(i + 6) << 32 | (long) s.charAt(i + 7) << 48;
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52DCE729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495AB5;
+        }
+        long k1 = 0, k2 = 0;
+        int tail = blocks << 3;
+        for (int i = len - 1; i >= tail + 4; i--) k2 = k2 << 16 | s.charAt(i);
+        for (int i = Math.min(len, tail + 4) - 1; i >= tail; i--) k1 = k1 << 16 | s.charAt(i);
+        if (len > tail + 4) h2 ^= mixK2(k2);
+        if (len > tail) h1 ^= mixK1(k1);
+        finish(h1, h2, len * 2L, out);
+    }
+
+    /** MurmurHash3 x64 128-bit over b[off .. off + len). Writes h1 to out[0] and h2 to out[1]. */
+    public static void murmur3_128(byte[] b, int off, int len, long seed, long[] out) {
+        int blocks = len >>> 4;
+        long h1 = seed, h2 = seed;
+        for (int i = 0; i < blocks; i++) {
+            int p = off + (i << 4);
+            h1 ^= mixK1(getLongLE(b, p));
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52DCE729;
+            h2 ^= mixK2(getLongLE(b, p + 8));
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495AB5;
+        }
+        long k1 = 0, k2 = 0;
+        int tail = off + (blocks << 4), rem = len & 15;
+        for (int i = rem - 1; i >= 8; i--) k2 = k2 << 8 | (b[tail + i] & 0xFFL);
+        for (int i = Math.min(rem, 8) - 1; i >= 0; i--) k1 = k1 << 8 | (b[tail + i] & 0xFFL);
+        if (rem > 8) h2 ^= mixK2(k2);
+        if (rem > 0) h1 ^= mixK1(k1);
+        finish(h1, h2, len, out);
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= 0x87C37B91114253D5L;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * 0x4CF5AD432745937FL;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= 0x4CF5AD432745937FL;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * 0x87C37B91114253D5L;
+    }
+
+    private static void finish(long h1, long h2, long len, long[] out) {
+        h1 ^= len;
+        h2 ^= len;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        out[0] = h1;
+        out[1] = h2;
+    }
+
+    private static long getLongLE(byte[] b, int p) {
+        return (b[p] & 0xFFL) | (b[p + 1] & 0xFFL) << 8 | (b[p + 2] & 0xFFL) << 16 | (b[p + 3] & 0xFFL) << 24
+                | (b[p + 4] & 0xFFL) << 32 | (b[p + 5] & 0xFFL) << 40 | (b[p + 6] & 0xFFL) << 48 | (b[p + 7] & 0xFFL) << 56;
+    }
+
+    /** MurmurHash3 finalizer: full avalanche of a 64-bit value. */
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
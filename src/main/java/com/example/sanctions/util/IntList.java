@@ -0,0 +1,46 @@
+package com.example.sanctions.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for entry-id candidate sets.
+ */
+public class IntList {
+    private int[] a;
+    private int size;
+
+    public IntList() { this(16); }
+
+    public IntList(int capacity) { a = new int[Math.max(1, capacity)]; }
+
+    public void add(int v) {
+        if (size == a.length) a = Arrays.copyOf(a, size << 1);
+        a[size++] = v;
+    }
+
+    public void addAll(int[] src, int from, int to) {
+        int n = to - from;
+        if (size + n > a.length) a = Arrays.copyOf(a, Math.max(size + n, size << 1));
+        System.arraycopy(src, from, a, size, n);
+        size += n;
+    }
+
+    public int get(int i) { return a[i]; }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() { size = 0; }
+
+    /** Sorts ascending and drops duplicates in place. */
+    public void sortUnique() {
+        if (size < 2) return;
+        Arrays.sort(a, 0, size);
+        int n = 1;
+        for (int i = 1; i < size; i++) if (a[i] != a[n - 1]) a[n++] = a[i];
+        size = n;
+    }
+
+    public int[] toArray() { return Arrays.copyOf(a, size); }
+}
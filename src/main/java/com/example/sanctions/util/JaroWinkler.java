@@ -0,0 +1,81 @@
+package com.example.sanctions.util;
+
+/**
+ * Jaro-Winkler similarity (prefix scale 0.1, prefix up to 4 chars, boost above 0.7).
+ * Match flags are per-thread bitsets, so scoring allocates nothing.
+ */
+public class JaroWinkler {
+    private static final double PREFIX_SCALE = 0.1;
+    private static final int MAX_PREFIX = 4;
+    private static final double BOOST_THRESHOLD = 0.7;
+
+    // [0] = flags for s1, [1] = flags for s2, grown on demand
+    private static final ThreadLocal<long[][]> FLAGS = ThreadLocal.withInitial(() -> new long[2][1]);
+
+    public static double similarity(CharSequence s1, CharSequence s2) {
+        return similarity(s1, s2, 0.0);
+    }
+
+    /**
+     * Returns the Jaro-Winkler similarity, or 0 as soon as it is known to be below threshold
+     * (the upper bound given the common prefix and the matches still possible falls short).
+     */
+    public static double similarity(CharSequence s1, CharSequence s2, double threshold) {
+        int l1 = s1.length(), l2 = s2.length();
+        if (l1 == 0 || l2 == 0) return l1 == l2 ? 1.0 : 0.0;
+
+        int prefix = 0;
+        for (int lim = Math.min(MAX_PREFIX, Math.min(l1, l2)); prefix < lim && s1.charAt(prefix) == s2.charAt(prefix); prefix++);
+        double boost = prefix * PREFIX_SCALE;
+
+        // fewest matches m for which jaro(m, t=0) plus the prefix boost can still reach threshold
+        int needed = 0;
+        if (threshold > 0) {
+            double jaro = boost >= 1 ? 0 : (threshold - boost) / (1 - boost);
+            needed = (int) Math.ceil((3 * jaro - 1) / (1.0 / l1 + 1.0 / l2) - 1e-9);
+            if (needed > Math.min(l1, l2)) return 0.0;
+        }
+
+        int words1 = (l1 + 63) >>> 6, words2 = (l2 + 63) >>> 6;
+        long[][] flags = FLAGS.get();
+        if (flags[0].length < words1) flags[0] = new long[words1];
+        if (flags[1].length < words2) flags[1] = new long[words2];
+        long[] f1 = flags[0], f2 = flags[1];
+        for (int w = 0; w < words1; w++) f1[w] = 0;
+        for (int w = 0; w < words2; w++) f2[w] = 0;
+
+        int window = Math.max(0, Math.max(l1, l2) / 2 - 1);
+        int m = 0;
+        for (int i = 0; i < l1; i++) {
+            char c = s1.charAt(i);
+            for (int j = Math.max(0, i - window), end = Math.min(l2, i + window + 1); j < end; j++) {
+                if ((f2[j >>> 6] & (1L << j)) == 0 && s2.charAt(j) == c) {
+                    f1[i >>> 6] |= 1L << i;
+                    f2[j >>> 6] |= 1L << j;
+                    m++;
+                    break;
+                }
+            }
+            if (m + (l1 - i - 1) < needed) return 0.0;
+        }
+        if (m == 0) return 0.0;
+
+        // transpositions: walk both flag sets in order
+        int half = 0;
+        int w2 = 0;
+        long bits2 = f2[0];
+        for (int w1 = 0; w1 < words1; w1++) {
+            for (long bits1 = f1[w1]; bits1 != 0; bits1 &= bits1 - 1) {
+                while (bits2 == 0) bits2 = f2[++w2];
+                int i = (w1 << 6) + Long.numberOfTrailingZeros(bits1);
+                int j = (w2 << 6) + Long.numberOfTrailingZeros(bits2);
+                bits2 &= bits2 - 1;
+                if (s1.charAt(i) != s2.charAt(j)) half++;
+            }
+        }
+
+        double jaro = ((double) m / l1 + (double) m / l2 + (double) (m - half / 2) / m) / 3.0;
+        double jw = jaro > BOOST_THRESHOLD ? jaro + boost * (1 - jaro) : jaro;
+        return jw < threshold ? 0.0 : jw;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.sanctions.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped, newline-aligned chunking of large text files, so chunks can be parsed on
+ * separate threads without a shared reader. Lines are handed out as byte ranges of a per-chunk
+ * scratch array; files of any size work since each chunk is mapped on its own.
+ * <pre>
+ *   long[] bounds = MappedCsv.chunks(ch, 8 &lt;&lt; 20);
+ *   // chunk i spans [bounds[i], bounds[i + 1])
+ *   MappedCsv.forEachLine(ch, bounds[i], bounds[i + 1], (buf, off, len) -&gt; ...);
+ * </pre>
+ */
+public final class MappedCsv {
+    private MappedCsv() {}
+
+    public interface LineHandler {
+        /** One line without its terminator (a trailing '\r' is kept). */
+        void line(byte[] buf, int off, int len);
+    }
+
+    /**
+     * Chunk boundaries of about chunkSize bytes, each moved forward to just past a '\n'.
+     * Returns offsets b[0] = 0 .. b[n] = size; every line lies in exactly one chunk.
+     */
+    public static long[] chunks(FileChannel ch, long chunkSize) throws IOException {
+        long size = ch.size();
+        int n = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 1, (size + chunkSize - 1) / chunkSize));
+        long[] bounds = new long[n + 1];
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        int out = 1;
+        for (int i = 1; i < n; i++) {
+            long pos = Math.max(i * chunkSize, bounds[out - 1]);
+            pos = nextLineStart(ch, pos, size, probe);
+            if (pos > bounds[out - 1] && pos < size) bounds[out++] = pos;
+        }
+        bounds[out] = size;
+        return out == n ? bounds : java.util.Arrays.copyOf(bounds, out + 1);
+    }
+
+    private static long nextLineStart(FileChannel ch, long pos, long size, ByteBuffer probe) throws IOException {
+        while (pos < size) {
+            probe.clear();
+            int r = ch.read(probe, pos);
+            if (r <= 0) return size;
+            for (int i = 0; i < r; i++) if (probe.get(i) == '\n') return pos + i + 1;
+            pos += r;
+        }
+        return size;
+    }
+
+    /** Maps [start, end) and passes each line to handler, in order. */
+    public static void forEachLine(FileChannel ch, long start, long end, LineHandler handler) throws IOException {
+        long len = end - start;
+        if (len <= 0) return;
+        if (len > Integer.MAX_VALUE - 8) throw new IOException("chunk too large: " + len);
+        MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, start, len);
+        byte[] line = new byte[256];
+        int n = (int) len, from = 0;
+        for (int i = 0; i <= n; i++) {
+            if (i < n && map.get(i) != '\n') continue;
+            int l = i - from;
+            if (l > 0 || i < n) {
+                if (line.length < l) line = new byte[Math.max(l, line.length << 1)];
+                map.get(from, line, 0, l);
+                handler.line(line, 0, l);
+            }
+            from = i + 1;
+        }
+    }
+
+    /** Index of the first b in buf[off .. off + len), or -1. */
+    public static int indexOf(byte[] buf, int off, int len, byte b) {
+        for (int i = off, end = off + len; i < end; i++) if (buf[i] == b) return i;
+        return -1;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.sanctions.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash LSH banding index over padded character shingles.
+ * Each name gets bands*rows min-hashes; every band of rows hashes is folded into one 64-bit
+ * key (salted with the band number) posting the entry id. Two names with shingle Jaccard
+ * similarity s share at least one band with probability 1 - (1 - s^rows)^bands, so more
+ * bands raise recall and more rows cut false candidates.
+ */
+public class MinHashIndex implements FuzzyIndex {
+    private static final char PAD = '\u0001';
+
+    private final NameArena names;
+    private final int bands;
+    private final int rows;
+    private final int shingle;
+    private final int maxEdits;
+    private final long[] seeds;
+    private final PostingIndex postings;
+
+    private MinHashIndex(NameArena names, int bands, int rows, int shingle, int maxEdits,
+                         long[] seeds, PostingIndex postings) {
+        this.names = names;
+        this.bands = bands;
+        this.rows = rows;
+        this.shingle = shingle;
+        this.maxEdits = maxEdits;
+        this.seeds = seeds;
+        this.postings = postings;
+    }
+
+    /** names are normalized entries addressed by entry id; maxEdits is used by search/closest. */
+    public static MinHashIndex build(NameArena names, int bands, int rows, int shingle, int maxEdits) {
+        if (bands < 1 || rows < 1) throw new IllegalArgumentException("bands and rows must be positive");
+        // a shingle is packed 16 bits per char into one long
+        if (shingle < 1 || shingle > 4) throw new IllegalArgumentException("shingle must be 1..4: " + shingle);
+        long[] seeds = new long[bands * rows];
+        SplittableRandom rnd = new SplittableRandom(0x5EED);
+        for (int i = 0; i < seeds.length; i++) seeds[i] = rnd.nextLong();
+        PostingIndex.Builder b = new PostingIndex.Builder();
+        long[] sig = new long[seeds.length];
+        long[] bandKeys = new long[bands];
+        for (int id = 0; id < names.size(); id++) {
+            signature(names.name(id), shingle, seeds, sig);
+            bandKeys(sig, bands, rows, bandKeys);
+            for (long k : bandKeys) b.add(k, id);
+        }
+        return new MinHashIndex(names, bands, rows, shingle, maxEdits, seeds, b.build());
+    }
+
+    /** Ids sharing at least one band with query, ascending and distinct. */
+    @Override
+    public IntList candidates(String query) {
+        long[] sig = new long[seeds.length];
+        long[] bandKeys = new long[bands];
+        signature(query, shingle, seeds, sig);
+        bandKeys(sig, bands, rows, bandKeys);
+        IntList out = new IntList();
+        for (long k : bandKeys) postings.collect(k, out);
+        out.sortUnique();
+        return out;
+    }
+
+    @Override
+    public void search(String query, IntList out) {
+        IntList cand = candidates(query);
+        FuzzyMatcher.Query q = FuzzyMatcher.prepare(query);
+        for (int i = 0; i < cand.size(); i++) {
+            int id = cand.get(i);
+            if (q.distance(names, id, maxEdits) <= maxEdits) out.add(id);
+        }
+    }
+
+    @Override
+    public int closest(String query, ScanStats scan) {
+        return FuzzyMatcher.closest(FuzzyMatcher.prepare(query), names, candidates(query), maxEdits, scan);
+    }
+
+    /** Probability that a name with shingle Jaccard similarity s becomes a candidate. */
+    public double probability(double s) {
+        return 1 - Math.pow(1 - Math.pow(s, rows), bands);
+    }
+
+    /** Similarity at the steepest point of the S-curve, roughly (1/bands)^(1/rows). */
+    public double threshold() {
+        return Math.pow(1.0 / bands, 1.0 / rows);
+    }
+
+    @Override
+    public int maxEdits() { return maxEdits; }
+
+    public int bands() { return bands; }
+
+    public int rows() { return rows; }
+
+    public PostingIndex postings() { return postings; }
+
+    private static void signature(String s, int shingle, long[] seeds, long[] sig) {
+        Arrays.fill(sig, Long.MAX_VALUE);
+        int len = s.length() + shingle - 1;
+        for (int i = 0; i < len; i++) {
+            long h = 0;
+            for (int j = i - shingle + 1; j <= i; j++) {
+                char c = j < 0 || j >= s.length() ? PAD : s.charAt(j);
+                h = h << 16 | c;
+            }
+            h = Hashing.fmix64(h);
+            for (int k = 0; k < seeds.length; k++) {
+                long v = Hashing.fmix64(h ^ seeds[k]);
+                if (v < sig[k]) sig[k] = v;
+            }
+        }
+    }
+
+    private static void bandKeys(long[] sig, int bands, int rows, long[] out) {
+        for (int b = 0; b < bands; b++) {
+            long k = Hashing.fmix64(b + 1);
+            for (int r = 0; r < rows; r++) k = Hashing.fmix64(k ^ sig[b * rows + r]);
+            out[b] = k;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.sanctions.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Names stored back to back as UTF-8 in one byte array and addressed by entry id through one
+ * offsets array, instead of a String (header, byte[] and reference) per entry. Ids are
+ * assigned in append order. Normalized names are ASCII, in which case each name's bytes are
+ * also its chars and can be scored in place (see FuzzyMatcher.Query#distance(NameArena, int, int)).
+ * Each name also keeps its NameSignature, so candidates can be bounded before they are scored.
+ */
+public class NameArena {
+    private byte[] data;
+    private int[] offsets;      // id spans data[offsets[id] .. offsets[id + 1])
+    private long[] signatures;  // by id, see NameSignature
+    private int size;
+    private boolean ascii = true;
+
+    public NameArena() { this(1024); }
+
+    public NameArena(int expectedNames) {
+        offsets = new int[Math.max(1, expectedNames) + 1];
+        signatures = new long[Math.max(1, expectedNames)];
+        data = new byte[Math.max(16, expectedNames) * 16];
+    }
+
+    /** Appends name and returns its id. Not thread safe; the arena is read-only once built. */
+    public int add(String name) {
+        int len = name.length(), at = offsets[size];
+        boolean plain = true;
+        for (int i = 0; i < len && plain; i++) plain = name.charAt(i) < 0x80;
+        if (plain) {
+            ensure(at + len);
+            for (int i = 0; i < len; i++) data[at + i] = (byte) name.charAt(i);
+        } else {
+            byte[] b = name.getBytes(StandardCharsets.UTF_8);
+            ensure(at + b.length);
+            System.arraycopy(b, 0, data, at, b.length);
+            len = b.length;
+            ascii = false;
+        }
+        if (size + 1 == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length << 1);
+        offsets[size + 1] = at + len;
+        if (size == signatures.length) signatures = Arrays.copyOf(signatures, size << 1);
+        signatures[size] = NameSignature.of(name);
+        return size++;
+    }
+
+    private void ensure(int capacity) {
+        if (capacity > data.length) data = Arrays.copyOf(data, Math.max(capacity, data.length + (data.length >> 1)));
+    }
+
+    /** Drops spare capacity once all names are added. */
+    public void trim() {
+        data = Arrays.copyOf(data, offsets[size]);
+        offsets = Arrays.copyOf(offsets, size + 1);
+        signatures = Arrays.copyOf(signatures, size);
+    }
+
+    public String name(int id) {
+        return new String(data, offsets[id], offsets[id + 1] - offsets[id],
+                ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    public int size() { return size; }
+
+    public int offset(int id) { return offsets[id]; }
+
+    /** Length in bytes; equal to the char length when isAscii(). */
+    public int length(int id) { return offsets[id + 1] - offsets[id]; }
+
+    public long signature(int id) { return signatures[id]; }
+
+    public byte[] data() { return data; }
+
+    /** True when every name is ASCII, so bytes and chars coincide. */
+    public boolean isAscii() { return ascii; }
+
+    public long memoryBytes() { return data.length + offsets.length * 4L + signatures.length * 8L; }
+}
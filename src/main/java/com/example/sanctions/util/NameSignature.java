@@ -0,0 +1,38 @@
+package com.example.sanctions.util;
+
+/**
+ * A name's character signature in one long: a 32-bit set of the characters present (A-Z on
+ * their own bits, everything else folded onto the other six) and a 32-bit set of its hashed
+ * bigrams. One edit adds and removes at most one character and at most two bigrams, so the
+ * set differences give lower bounds on the edit distance that cost a few popcounts; see
+ * lowerBound. Folding only merges bits, which can weaken the bound but never break it.
+ */
+public final class NameSignature {
+    private NameSignature() {}
+
+    public static long of(CharSequence s) {
+        int chars = 0, grams = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            chars |= 1 << charBit(c);
+            if (i > 0) grams |= 1 << gramBit(s.charAt(i - 1), c);
+        }
+        return (long) grams << 32 | (chars & 0xFFFFFFFFL);
+    }
+
+    /** At most the Levenshtein distance of the two names whose signatures these are. */
+    public static int lowerBound(long a, long b) {
+        long onlyA = a & ~b, onlyB = b & ~a;
+        int chars = Math.max(Integer.bitCount((int) onlyA), Integer.bitCount((int) onlyB));
+        int grams = Math.max(Long.bitCount(onlyA >>> 32), Long.bitCount(onlyB >>> 32));
+        return Math.max(chars, (grams + 1) >>> 1);
+    }
+
+    private static int charBit(char c) {
+        return c >= 'A' && c <= 'Z' ? c - 'A' : 26 + c % 6;
+    }
+
+    private static int gramBit(char a, char b) {
+        return ((a * 31 + b) * 0x9E3779B9) >>> 27;
+    }
+}
@@ -6,15 +6,80 @@ import java.text.Normalizer;
 import java.util.Locale;
 
 public class NormalizerUtil {
+    public static final int MAX_LENGTH = 20;
+
+    // Folding for chars below FOLD_LIMIT: uppercase, diacritics removed, only A-Z 0-9 and space kept.
+    // Everything else goes through the JDK (toUpperCase + NFD) before the same pass.
+    private static final int FOLD_LIMIT = 0x250;
+    private static final char[] ASCII = new char[128];  // 0 = drop
+    private static final String[] FOLD = new String[FOLD_LIMIT];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) { ASCII[c] = c; ASCII[c + ('a' - 'A')] = c; }
+        for (char c = '0'; c <= '9'; c++) ASCII[c] = c;
+        ASCII[' '] = ' ';
+        for (char c = 0x80; c < FOLD_LIMIT; c++) FOLD[c] = whitelist(decompose(String.valueOf(c)));
+    }
+
     // Normalize to uppercase, remove diacritics, keep letters and spaces, truncate to 20 chars
     public static String normalize(String s) {
         if (s == null) return "";
-        String t = s.trim().toUpperCase(Locale.ROOT);
-        t = java.text.Normalizer.normalize(t, Normalizer.Form.NFD).replaceAll("\\p{M}", ""); // remove diacritics
-        t = t.replaceAll("[^A-Z0-9 ]+", ""); // keep letters, digits, spaces
-        t = t.replaceAll("\\s+", " ").trim(); // collapse spaces
-        if (t.length() > 20) t = t.substring(0, 20);
-        return t;
+        char[] buf = new char[MAX_LENGTH];
+        int n = normalize(s, buf);
+        return new String(buf, 0, n);
+    }
+
+    /**
+     * Same as {@link #normalize(String)} but writes into {@code out} (at least MAX_LENGTH chars)
+     * and returns the length. Allocates nothing unless the input has chars outside Latin Extended-B.
+     */
+    public static int normalize(CharSequence s, char[] out) {
+        if (s == null) return 0;
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            if (s.charAt(i) >= FOLD_LIMIT) return fold(decompose(s.toString()), out);
+        }
+        return fold(s, out);
     }
-}
 
+    // single pass: fold, whitelist, collapse and trim spaces, truncate
+    private static int fold(CharSequence s, char[] out) {
+        int n = 0;
+        boolean space = false;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 128) {
+                char f = ASCII[c];
+                if (f == ' ') space = n > 0;
+                else if (f != 0) {
+                    if (space) { out[n++] = ' '; space = false; if (n == MAX_LENGTH) return n; }
+                    out[n++] = f;
+                    if (n == MAX_LENGTH) return n;
+                }
+            } else if (c < FOLD_LIMIT) {
+                String f = FOLD[c];
+                for (int j = 0; j < f.length(); j++) {
+                    char fc = f.charAt(j);
+                    if (fc == ' ') { space = n > 0; continue; }
+                    if (space) { out[n++] = ' '; space = false; if (n == MAX_LENGTH) return n; }
+                    out[n++] = fc;
+                    if (n == MAX_LENGTH) return n;
+                }
+            }
+        }
+        return n;
+    }
+
+    private static String decompose(String s) {
+        return Normalizer.normalize(s.toUpperCase(Locale.ROOT), Normalizer.Form.NFD);
+    }
+
+    private static String whitelist(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == ' ') sb.append(c);
+        }
+        return sb.toString();
+    }
+}
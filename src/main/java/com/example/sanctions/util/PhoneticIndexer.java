@@ -1,14 +1,95 @@
 package com.example.sanctions.util;
 
 
+import org.apache.commons.codec.EncoderException;
 import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.codec.language.Nysiis;
+import org.apache.commons.codec.language.bm.BeiderMorseEncoder;
+import org.apache.commons.codec.language.bm.NameType;
+import org.apache.commons.codec.language.bm.RuleType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 public class PhoneticIndexer {
     private static final DoubleMetaphone dm = new DoubleMetaphone();
+    private static final Nysiis nysiis = new Nysiis();
+    private static final ThreadLocal<BeiderMorseEncoder> beiderMorse = ThreadLocal.withInitial(() -> {
+        BeiderMorseEncoder e = new BeiderMorseEncoder();
+        e.setNameType(NameType.GENERIC);
+        e.setRuleType(RuleType.APPROX);
+        return e;
+    });
+    // Beider-Morse can emit dozens of alternates for a long name; only the first few are indexed
+    private static final int MAX_BEIDER_MORSE_CODES = 8;
+
+    /** Phonetic algorithms indexed in addition to both Double Metaphone codes. */
+    public enum Encoder {
+        NYSIIS("N:"), BEIDER_MORSE("B:");
+
+        // keeps codes from different algorithms apart; Double Metaphone codes are unprefixed
+        final String prefix;
+
+        Encoder(String prefix) { this.prefix = prefix; }
 
+        /** Parses a comma separated list such as "nysiis,beidermorse". */
+        public static Set<Encoder> parse(String list) {
+            Set<Encoder> out = java.util.EnumSet.noneOf(Encoder.class);
+            if (list == null) return out;
+            for (String s : list.split(",")) {
+                String n = s.trim().toUpperCase(Locale.ROOT).replace("-", "_");
+                if (n.isEmpty()) continue;
+                out.add(n.equals("BEIDERMORSE") ? BEIDER_MORSE : valueOf(n));
+            }
+            return out;
+        }
+    }
+
+    /** Primary Double Metaphone code. */
     public static String code(String s) {
         if (s == null || s.isEmpty()) return "";
         return dm.encode(s);
     }
-}
 
+    /**
+     * Distinct blocking codes for s: the primary Double Metaphone code first, then the alternate,
+     * then each extra encoder's (prefixed so they cannot collide with another algorithm's).
+     */
+    public static List<String> codes(String s, Set<Encoder> extra) {
+        List<String> out = new ArrayList<>(4);
+        if (s == null || s.isEmpty()) return out;
+        addCode(out, dm.doubleMetaphone(s));
+        addCode(out, dm.doubleMetaphone(s, true));
+        if (extra.contains(Encoder.NYSIIS)) addCode(out, Encoder.NYSIIS.prefix + nysiis.encode(s));
+        if (extra.contains(Encoder.BEIDER_MORSE)) {
+            try {
+                String[] alternates = beiderMorse.get().encode(s).split("\\|");
+                for (int i = 0; i < alternates.length && i < MAX_BEIDER_MORSE_CODES; i++)
+                    addCode(out, Encoder.BEIDER_MORSE.prefix + alternates[i]);
+            } catch (EncoderException e) {
+                // no Beider-Morse codes for this name; the other keys still block it
+            }
+        }
+        return out;
+    }
+
+    private static void addCode(List<String> out, String code) {
+        if (code != null && !code.isEmpty() && !out.contains(code)) out.add(code);
+    }
+
+    /**
+     * code as a 64-bit posting key: up to 8 ASCII chars packed exactly (Double Metaphone codes
+     * are at most 4), anything longer hashed with the top bit set so the two cannot collide.
+     */
+    public static long key(String code) {
+        int n = code.length();
+        boolean packed = n <= 8;
+        for (int i = 0; i < n && packed; i++) packed = code.charAt(i) < 0x80;
+        if (!packed) return Hashing.hash64(code) | Long.MIN_VALUE;
+        long k = 0;
+        for (int i = 0; i < n; i++) k = k << 8 | code.charAt(i);
+        return k;
+    }
+}
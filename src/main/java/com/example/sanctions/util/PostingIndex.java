@@ -0,0 +1,150 @@
+package com.example.sanctions.util;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Immutable inverted index from 64-bit keys to sorted entry-id postings, laid out CSR style:
+ * an open-addressing key table points into one offsets array and one ids array. Postings are
+ * in id order unless the index was built with a rank, see Builder#build(IntUnaryOperator).
+ * <pre>
+ *   int b = index.find(key);
+ *   for (int i = index.start(b); i < index.end(b); i++) use(index.id(i));
+ * </pre>
+ */
+public class PostingIndex {
+    private final long[] tableKeys;
+    private final int[] tableBuckets;   // bucket + 1, 0 = empty slot
+    private final int mask;
+    private final int[] offsets;        // bucket b spans ids[offsets[b] .. offsets[b + 1])
+    private final int[] ids;
+    private final boolean idOrder;
+
+    private PostingIndex(long[] tableKeys, int[] tableBuckets, int[] offsets, int[] ids, boolean idOrder) {
+        this.tableKeys = tableKeys;
+        this.tableBuckets = tableBuckets;
+        this.mask = tableKeys.length - 1;
+        this.offsets = offsets;
+        this.ids = ids;
+        this.idOrder = idOrder;
+    }
+
+    /** Bucket for key, or -1 if the key has no postings. */
+    public int find(long key) {
+        for (int s = (int) Hashing.fmix64(key) & mask; ; s = (s + 1) & mask) {
+            int b = tableBuckets[s];
+            if (b == 0) return -1;
+            if (tableKeys[s] == key) return b - 1;
+        }
+    }
+
+    public int start(int bucket) { return bucket < 0 ? 0 : offsets[bucket]; }
+
+    public int end(int bucket) { return bucket < 0 ? 0 : offsets[bucket + 1]; }
+
+    public int size(int bucket) { return end(bucket) - start(bucket); }
+
+    public int id(int i) { return ids[i]; }
+
+    /** Appends the postings for key to out. */
+    public void collect(long key, IntList out) {
+        int b = find(key);
+        if (b >= 0) out.addAll(ids, offsets[b], offsets[b + 1]);
+    }
+
+    public void collectBucket(int bucket, IntList out) {
+        if (bucket >= 0) out.addAll(ids, offsets[bucket], offsets[bucket + 1]);
+    }
+
+    /** Binary search of a bucket's sorted postings; only for an index in id order. */
+    public boolean contains(int bucket, int id) {
+        if (!idOrder) throw new IllegalStateException("postings are not in id order");
+        if (bucket < 0) return false;
+        return Arrays.binarySearch(ids, offsets[bucket], offsets[bucket + 1], id) >= 0;
+    }
+
+    public int keyCount() { return offsets.length - 1; }
+
+    public int postingCount() { return ids.length; }
+
+    public long memoryBytes() {
+        return tableKeys.length * 8L + tableBuckets.length * 4L + offsets.length * 4L + ids.length * 4L;
+    }
+
+    public static class Builder {
+        private long[] tableKeys = new long[1024];
+        private int[] tableBuckets = new int[1024];
+        private int keyCount;
+        private long[] pairs = new long[1024];   // bucket << 32 | id
+        private int pairCount;
+
+        public void add(long key, int id) {
+            if (pairCount == pairs.length) pairs = Arrays.copyOf(pairs, pairCount << 1);
+            pairs[pairCount++] = (long) bucket(key) << 32 | (id & 0xFFFFFFFFL);
+        }
+
+        public int pairCount() { return pairCount; }
+
+        private int bucket(long key) {
+            int mask = tableKeys.length - 1;
+            int s = (int) Hashing.fmix64(key) & mask;
+            for (; tableBuckets[s] != 0; s = (s + 1) & mask) {
+                if (tableKeys[s] == key) return tableBuckets[s] - 1;
+            }
+            tableKeys[s] = key;
+            tableBuckets[s] = ++keyCount;
+            if (keyCount * 2 > tableKeys.length) grow();
+            return keyCount - 1;
+        }
+
+        private void grow() {
+            long[] oldKeys = tableKeys;
+            int[] oldBuckets = tableBuckets;
+            tableKeys = new long[oldKeys.length << 1];
+            tableBuckets = new int[oldBuckets.length << 1];
+            int mask = tableKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldBuckets[i] == 0) continue;
+                int s = (int) Hashing.fmix64(oldKeys[i]) & mask;
+                while (tableBuckets[s] != 0) s = (s + 1) & mask;
+                tableKeys[s] = oldKeys[i];
+                tableBuckets[s] = oldBuckets[i];
+            }
+        }
+
+        /** Sorts postings by id and drops repeated (key, id) pairs. The builder must not be reused. */
+        public PostingIndex build() {
+            Arrays.parallelSort(pairs, 0, pairCount);
+            int[] offsets = new int[keyCount + 1];
+            int n = 0;
+            for (int i = 0; i < pairCount; i++) {
+                if (i > 0 && pairs[i] == pairs[i - 1]) continue;
+                offsets[(int) (pairs[i] >>> 32) + 1]++;
+                pairs[n++] = pairs[i];
+            }
+            for (int b = 0; b < keyCount; b++) offsets[b + 1] += offsets[b];
+            int[] ids = new int[n];
+            for (int i = 0; i < n; i++) ids[i] = (int) pairs[i];
+            pairs = null;
+            return new PostingIndex(tableKeys, tableBuckets, offsets, ids, true);
+        }
+
+        /**
+         * As build(), with each bucket's postings ordered by rank(id) and then id, so a range of
+         * ranks (say, name lengths) is one contiguous run that can be binary searched.
+         */
+        public PostingIndex build(IntUnaryOperator rank) {
+            PostingIndex p = build();
+            long[] tmp = new long[16];
+            for (int b = 0; b < p.keyCount(); b++) {
+                int from = p.offsets[b], n = p.offsets[b + 1] - from;
+                if (n < 2) continue;
+                if (tmp.length < n) tmp = new long[Math.max(n, tmp.length << 1)];
+                for (int i = 0; i < n; i++) tmp[i] = (long) rank.applyAsInt(p.ids[from + i]) << 32 | p.ids[from + i];
+                Arrays.sort(tmp, 0, n);
+                for (int i = 0; i < n; i++) p.ids[from + i] = (int) tmp[i];
+            }
+            return new PostingIndex(p.tableKeys, p.tableBuckets, p.offsets, p.ids, false);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.sanctions.util;
+
+import java.util.Arrays;
+
+/**
+ * Q-gram inverted index with T-occurrence count filtering.
+ * Each distinct padded q-gram of a name (q up to 4, packed exactly into a long) posts the
+ * name's entry id. A name within k edits of the query shares at least
+ * T = distinctGrams(query) - q*k of them, so only ids reaching T are verified.
+ * Counting merges just the shortest lists and binary-searches the long ones (MergeOpt),
+ * so very common grams do not drive the cost.
+ */
+public class QGramIndex implements FuzzyIndex {
+    private static final char START = '\u0001';
+    private static final char END = '\u0002';
+
+    private final NameArena names;
+    private final int q;
+    private final int maxEdits;
+    private final PostingIndex postings;
+
+    private QGramIndex(NameArena names, int q, int maxEdits, PostingIndex postings) {
+        this.names = names;
+        this.q = q;
+        this.maxEdits = maxEdits;
+        this.postings = postings;
+    }
+
+    /** names are normalized entries addressed by entry id. */
+    public static QGramIndex build(NameArena names, int q, int maxEdits) {
+        if (q < 2 || q > 4) throw new IllegalArgumentException("q must be 2..4: " + q);
+        PostingIndex.Builder b = new PostingIndex.Builder();
+        long[] grams = new long[64];
+        for (int id = 0; id < names.size(); id++) {
+            String s = names.name(id);
+            if (grams.length < s.length() + q) grams = new long[s.length() + q];
+            int n = grams(s, q, grams);
+            for (int i = 0; i < n; i++) b.add(grams[i], id);
+        }
+        return new QGramIndex(names, q, maxEdits, b.build());
+    }
+
+    @Override
+    public void search(String query, IntList out) {
+        IntList cand = candidates(query);
+        FuzzyMatcher.Query fq = FuzzyMatcher.prepare(query);
+        for (int i = 0; i < cand.size(); i++) {
+            int id = cand.get(i);
+            if (fq.distance(names, id, maxEdits) <= maxEdits) out.add(id);
+        }
+    }
+
+    @Override
+    public int closest(String query, ScanStats scan) {
+        return FuzzyMatcher.closest(FuzzyMatcher.prepare(query), names, candidates(query), maxEdits, scan);
+    }
+
+    /**
+     * Ids sharing at least T distinct q-grams with query, ascending. T is clamped to 1, so very
+     * short queries (where q*k covers every gram) only get candidates sharing some gram.
+     */
+    @Override
+    public IntList candidates(String query) {
+        long[] grams = new long[query.length() + q];
+        int n = grams(query, q, grams);
+        int t = Math.max(1, n - q * maxEdits);
+
+        // bucket per gram, shortest postings first; grams absent from the index count as empty
+        long[] bySize = new long[n];
+        int lists = 0;
+        for (int i = 0; i < n; i++) {
+            int b = postings.find(grams[i]);
+            if (b >= 0) bySize[lists++] = (long) postings.size(b) << 32 | b;
+        }
+        IntList out = new IntList();
+        if (lists < t) return out;
+        Arrays.sort(bySize, 0, lists);
+
+        // any id in >= t of the lists appears in one of the (lists - t + 1) shortest
+        int shortLists = lists - t + 1;
+        IntList merged = new IntList();
+        for (int i = 0; i < shortLists; i++) {
+            int b = (int) bySize[i];
+            postings.collectBucket(b, merged);
+        }
+        int[] m = merged.toArray();
+        Arrays.sort(m);
+        for (int i = 0; i < m.length; ) {
+            int id = m[i], count = 0;
+            while (i < m.length && m[i] == id) { count++; i++; }
+            for (int l = shortLists; l < lists && count < t; l++) {
+                // short of t even if every remaining long list holds id
+                if (count + (lists - l) < t) break;
+                int b = (int) bySize[l];
+                if (postings.contains(b, id)) count++;
+            }
+            if (count >= t) out.add(id);
+        }
+        return out;
+    }
+
+    @Override
+    public int maxEdits() { return maxEdits; }
+
+    public int q() { return q; }
+
+    public PostingIndex postings() { return postings; }
+
+    // distinct padded q-grams of s, each packed as q 16-bit chars
+    private static int grams(String s, int q, long[] out) {
+        int len = s.length() + q - 1;
+        int n = 0;
+        for (int i = 0; i < len; i++) {
+            long g = 0;
+            for (int j = i - q + 1; j <= i; j++) {
+                char c = j < 0 ? START : j >= s.length() ? END : s.charAt(j);
+                g = g << 16 | c;
+            }
+            boolean seen = false;
+            for (int k = 0; k < n && !seen; k++) seen = out[k] == g;
+            if (!seen) out[n++] = g;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.sanctions.util;
+
+/**
+ * What one closest() call did, for explain: the candidates it drew from, how many of them a
+ * length or signature bound dropped unscored, and how many it scored. The rest were never
+ * reached: outside a bucket's length window, or after an exact hit ended the scan. Callers
+ * pass null when nobody asks, and then nothing is counted.
+ */
+public final class ScanStats {
+    private int candidates;
+    private int pruned;
+    private int scored;
+
+    void add(int candidates, int pruned, int scored) {
+        this.candidates += candidates;
+        this.pruned += pruned;
+        this.scored += scored;
+    }
+
+    public int candidates() { return candidates; }
+
+    public int pruned() { return pruned; }
+
+    public int scored() { return scored; }
+}
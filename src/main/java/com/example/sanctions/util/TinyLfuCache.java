@@ -0,0 +1,233 @@
+package com.example.sanctions.util;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded W-TinyLFU cache from String keys to values stamped with the index generation they
+ * were computed on; a get with any other generation is a miss, so a reload invalidates every
+ * entry without a sweep and stale ones age out as they are replaced.
+ * <p>
+ * The key space is split into independently locked segments. Each holds a small LRU window
+ * (1%) in front of a segmented-LRU main area (probation, and protected at 80% of main); a
+ * window victim only enters main if a count-min sketch of recent access frequency rates it
+ * above main's victim, so one-off names cannot flush the names that keep coming back.
+ * A hit takes the segment lock for a map probe and a few link updates and allocates nothing.
+ */
+public class TinyLfuCache<V> {
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(int capacity, int segmentCount) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        int n = Integer.highestOneBit(Math.max(1, Math.min(segmentCount, capacity)));
+        segments = new Segment[n];
+        for (int i = 0; i < n; i++) segments[i] = new Segment<>(capacity / n + (i < capacity % n ? 1 : 0), evictions);
+        segmentShift = 32 - Integer.numberOfTrailingZeros(n);
+    }
+
+    /** The value cached for key on generation, or null. */
+    public V get(String key, long generation) {
+        int h = spread(key.hashCode());
+        V v = segment(h).get(key, h, generation);
+        (v == null ? misses : hits).increment();
+        return v;
+    }
+
+    public void put(String key, V value, long generation) {
+        int h = spread(key.hashCode());
+        segment(h).put(key, h, value, generation);
+    }
+
+    private Segment<V> segment(int h) {
+        return segmentShift == 32 ? segments[0] : segments[h >>> segmentShift];
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public long hits() { return hits.sum(); }
+
+    public long misses() { return misses.sum(); }
+
+    public long evictions() { return evictions.sum(); }
+
+    public int size() {
+        int n = 0;
+        for (Segment<V> s : segments) n += s.size();
+        return n;
+    }
+
+    public int capacity() {
+        int n = 0;
+        for (Segment<V> s : segments) n += s.capacity;
+        return n;
+    }
+
+    private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    private static final class Node<V> {
+        final String key;
+        final int hash;
+        V value;
+        long generation;
+        int queue;
+        Node<V> prev, next;
+
+        Node(String key, int hash) {
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+
+    // doubly linked LRU list, head = most recent
+    private static final class Queue<V> {
+        Node<V> head, tail;
+        int size;
+
+        void addFirst(Node<V> n) {
+            n.prev = null;
+            n.next = head;
+            if (head != null) head.prev = n; else tail = n;
+            head = n;
+            size++;
+        }
+
+        void remove(Node<V> n) {
+            if (n.prev != null) n.prev.next = n.next; else head = n.next;
+            if (n.next != null) n.next.prev = n.prev; else tail = n.prev;
+            n.prev = n.next = null;
+            size--;
+        }
+    }
+
+    private static final class Segment<V> {
+        final int capacity;
+        final int windowCapacity;
+        final int protectedCapacity;
+        final HashMap<String, Node<V>> map;
+        @SuppressWarnings("unchecked")
+        final Queue<V>[] queues = new Queue[]{new Queue<V>(), new Queue<V>(), new Queue<V>()};
+        final FrequencySketch sketch;
+        final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            this.capacity = Math.max(1, capacity);
+            this.windowCapacity = Math.max(1, this.capacity / 100);
+            this.protectedCapacity = (int) ((this.capacity - windowCapacity) * 0.8);
+            this.map = new HashMap<>(this.capacity * 4 / 3 + 1);
+            this.sketch = new FrequencySketch(this.capacity);
+            this.evictions = evictions;
+        }
+
+        synchronized int size() { return map.size(); }
+
+        synchronized V get(String key, int hash, long generation) {
+            sketch.increment(hash);
+            Node<V> n = map.get(key);
+            if (n == null || n.generation != generation) return null;
+            touch(n);
+            return n.value;
+        }
+
+        synchronized void put(String key, int hash, V value, long generation) {
+            Node<V> n = map.get(key);
+            if (n != null) {
+                n.value = value;
+                n.generation = generation;
+                touch(n);
+                return;
+            }
+            n = new Node<>(key, hash);
+            n.value = value;
+            n.generation = generation;
+            map.put(key, n);
+            n.queue = WINDOW;
+            queues[WINDOW].addFirst(n);
+            if (queues[WINDOW].size > windowCapacity) admit(queues[WINDOW].tail);
+        }
+
+        private void touch(Node<V> n) {
+            queues[n.queue].remove(n);
+            if (n.queue == PROBATION) {
+                n.queue = PROTECTED;
+                if (queues[PROTECTED].size >= protectedCapacity && queues[PROTECTED].tail != null) {
+                    Node<V> demoted = queues[PROTECTED].tail;
+                    queues[PROTECTED].remove(demoted);
+                    demoted.queue = PROBATION;
+                    queues[PROBATION].addFirst(demoted);
+                }
+            }
+            queues[n.queue].addFirst(n);
+        }
+
+        // window overflowed: candidate moves to probation if main has room or it is more
+        // frequent than main's LRU victim; otherwise it is the one dropped
+        private void admit(Node<V> candidate) {
+            queues[WINDOW].remove(candidate);
+            candidate.queue = PROBATION;
+            queues[PROBATION].addFirst(candidate);
+            if (map.size() <= capacity) return;
+            Node<V> victim = queues[PROBATION].tail != candidate ? queues[PROBATION].tail : queues[PROTECTED].tail;
+            if (victim == null || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) victim = candidate;
+            queues[victim.queue].remove(victim);
+            map.remove(victim.key);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Count-min sketch of four 4-bit counters per key, packed 16 to a long. All counters are
+     * halved every 10 * capacity increments, so frequencies follow recent traffic.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+            table = new long[size];
+            mask = size - 1;
+            sampleSize = 10 * Math.max(1, capacity);
+        }
+
+        int frequency(int hash) {
+            int f = 15;
+            for (int i = 0; i < 4; i++) {
+                long h = hash * SEEDS[i];
+                int index = (int) (h >>> 40) & mask;
+                int shift = (i << 2) + (((int) (h >>> 32) & 3) << 4);
+                f = Math.min(f, (int) (table[index] >>> shift) & 15);
+            }
+            return f;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                long h = hash * SEEDS[i];
+                int index = (int) (h >>> 40) & mask;
+                int shift = (i << 2) + (((int) (h >>> 32) & 3) << 4);
+                if (((table[index] >>> shift) & 15) != 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) reset();
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            additions >>>= 1;
+        }
+    }
+}
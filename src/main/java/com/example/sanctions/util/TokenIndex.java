@@ -0,0 +1,202 @@
+package com.example.sanctions.util;
+
+import java.util.Arrays;
+
+/**
+ * Token inverted index for order-insensitive matching: each distinct space-separated token of a
+ * name posts the name's entry id, and carries a precomputed IDF = ln(N / df). A query and an
+ * entry score by IDF-weighted Jaccard over their token sets, shared / (query + entry - shared),
+ * so "KHAN MOHAMMED ALI" matches "ALI KHAN MOHAMMED" exactly and dropping a common token such
+ * as MOHAMMED costs little.
+ * <p>
+ * Candidates come from the rarest tokens first. Since a match needs shared weight of at least
+ * minScore * query weight, probing stops once the tokens not yet probed could not reach that
+ * between them; those (common, long-postings) tokens are only binary-searched for the
+ * candidates already found, never walked.
+ */
+public class TokenIndex {
+    private final double minScore;
+    private final PostingIndex postings;
+    private final float[] idf;           // by postings bucket
+    private final float[] weights;       // by entry id: sum of its distinct tokens' idf
+    private final float unknownIdf;      // for query tokens that no entry has
+
+    private TokenIndex(double minScore, PostingIndex postings, float[] idf, float[] weights) {
+        this.minScore = minScore;
+        this.postings = postings;
+        this.idf = idf;
+        this.weights = weights;
+        this.unknownIdf = (float) Math.log(Math.max(1, weights.length));
+    }
+
+    /** names are normalized entries addressed by entry id; minScore in (0, 1] is the match bound. */
+    public static TokenIndex build(NameArena names, double minScore) {
+        if (minScore <= 0 || minScore > 1) throw new IllegalArgumentException("minScore must be in (0, 1]: " + minScore);
+        PostingIndex.Builder b = new PostingIndex.Builder();
+        long[] keys = new long[16];
+        for (int id = 0; id < names.size(); id++) {
+            int n = tokens(names.name(id), keys);
+            for (int i = 0; i < n; i++) b.add(keys[i], id);
+        }
+        PostingIndex postings = b.build();
+        int count = Math.max(1, names.size());
+        float[] idf = new float[postings.keyCount()];
+        for (int t = 0; t < idf.length; t++) idf[t] = (float) Math.log((double) count / postings.size(t));
+        float[] weights = new float[names.size()];
+        for (int id = 0; id < names.size(); id++) {
+            int n = tokens(names.name(id), keys);
+            float w = 0;
+            for (int i = 0; i < n; i++) w += idf[postings.find(keys[i])];
+            weights[id] = w;
+        }
+        return new TokenIndex(minScore, postings, idf, weights);
+    }
+
+    /**
+     * Ids that could reach minScore against query, ascending: entries of a compatible total
+     * weight in the postings of the rarest tokens, up to the point where the rest could not make
+     * up the bound.
+     */
+    public IntList candidates(String query) {
+        return candidates(new Query(query));
+    }
+
+    /** Adds the ids scoring at least minScore against query to out, ascending. */
+    public void search(String query, IntList out) {
+        Query q = new Query(query);
+        IntList cand = candidates(q);
+        for (int i = 0; i < cand.size(); i++) {
+            int id = cand.get(i);
+            if (q.score(id) >= minScore) out.add(id);
+        }
+    }
+
+    /** Entry id with the highest score of at least minScore (the lowest id on ties), or -1. */
+    public int closest(String query) {
+        return closest(query, null);
+    }
+
+    /** closest, counting its candidates into scan unless that is null; none are pruned unscored. */
+    public int closest(String query, ScanStats scan) {
+        Query q = new Query(query);
+        IntList cand = candidates(q);
+        int best = -1, i = 0;
+        double bestScore = minScore;
+        for (; i < cand.size() && bestScore < 1; i++) {
+            int id = cand.get(i);
+            double s = q.score(id);
+            if (s > bestScore || s == bestScore && best < 0) { bestScore = s; best = id; }
+        }
+        if (scan != null) scan.add(cand.size(), 0, i);
+        return best;
+    }
+
+    /**
+     * Offers every candidate scoring at least minScore to out. A candidate is only scored if
+     * its bound min(q, e) / max(q, e) on the weights beats out's current kth score.
+     */
+    public void rank(String query, TopK out) {
+        Query q = new Query(query);
+        IntList cand = candidates(q);
+        for (int i = 0; i < cand.size(); i++) {
+            int id = cand.get(i);
+            double w = weights[id];
+            if (Math.min(w, q.weight) / Math.max(w, q.weight) < out.threshold()) continue;
+            double s = q.score(id);
+            if (s >= minScore) out.offer(id, s);
+        }
+    }
+
+    /** IDF-weighted Jaccard of query's and entry id's token sets. */
+    public double score(String query, int id) {
+        return new Query(query).score(id);
+    }
+
+    // shared <= min(query, entry) weight, so a match needs entry weight in [minScore * q, q / minScore]
+    private IntList candidates(Query q) {
+        IntList out = new IntList();
+        float lo = (float) (minScore * q.weight * 0.999), hi = (float) (q.weight / minScore * 1.001);
+        for (int i = 0; i < q.walked; i++) {
+            for (int j = postings.start(q.buckets[i]), end = postings.end(q.buckets[i]); j < end; j++) {
+                int id = postings.id(j);
+                if (weights[id] >= lo && weights[id] <= hi) out.add(id);
+            }
+        }
+        if (q.walked > 1) out.sortUnique();
+        return out;
+    }
+
+    public double minScore() { return minScore; }
+
+    public PostingIndex postings() { return postings; }
+
+    /** Document frequency of the most common token. */
+    public int maxPostings() {
+        int max = 0;
+        for (int t = 0; t < postings.keyCount(); t++) max = Math.max(max, postings.size(t));
+        return max;
+    }
+
+    public long memoryBytes() {
+        return postings.memoryBytes() + idf.length * 4L + weights.length * 4L;
+    }
+
+    private final class Query {
+        final int[] buckets;     // tokens found in the index, rarest first
+        final int present;
+        final int walked;        // buckets[0 .. walked) are walked, the rest only probed
+        final double weight;
+
+        Query(String query) {
+            long[] keys = new long[query.length() / 2 + 1];
+            int n = tokens(query, keys);
+            long[] byDf = new long[n];
+            int p = 0;
+            double w = 0;
+            for (int i = 0; i < n; i++) {
+                int b = postings.find(keys[i]);
+                if (b < 0) { w += unknownIdf; continue; }
+                w += idf[b];
+                byDf[p++] = (long) postings.size(b) << 32 | b;
+            }
+            Arrays.sort(byDf, 0, p);
+            buckets = new int[p];
+            for (int i = 0; i < p; i++) buckets[i] = (int) byDf[i];
+            present = p;
+            weight = w;
+            // shared >= minScore * weight is necessary; stop walking once the suffix cannot supply it
+            double need = minScore * w, suffix = 0;
+            int k = p;
+            for (int i = p - 1; i >= 0; i--) {
+                suffix += idf[buckets[i]];
+                if (suffix >= need) { k = i; break; }
+            }
+            walked = k == p || need <= 0 ? 0 : k + 1;
+        }
+
+        double score(int id) {
+            double shared = 0;
+            for (int i = 0; i < present; i++) if (postings.contains(buckets[i], id)) shared += idf[buckets[i]];
+            double union = weight + weights[id] - shared;
+            if (union <= 0) return 0;
+            // the same token set, up to float rounding of the sums
+            return union - shared < 1e-6 * union ? 1 : shared / union;
+        }
+    }
+
+    // distinct token hashes of a normalized name
+    private static int tokens(String s, long[] out) {
+        int n = 0, len = s.length();
+        for (int i = 0; i < len; ) {
+            while (i < len && s.charAt(i) == ' ') i++;
+            int start = i;
+            while (i < len && s.charAt(i) != ' ') i++;
+            if (i == start) break;
+            long k = Hashing.hash64(s.subSequence(start, i));
+            boolean seen = false;
+            for (int j = 0; j < n && !seen; j++) seen = out[j] == k;
+            if (!seen && n < out.length) out[n++] = k;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.sanctions.util;
+
+/**
+ * The k best (entry id, score) pairs seen so far, in a fixed-size min-heap over primitive
+ * arrays: the root is the current kth best, so threshold() is what a candidate must beat and
+ * scorers can skip anything whose upper bound is not above it. An id offered twice keeps its
+ * higher score. Higher scores rank first, then lower ids.
+ * <pre>
+ *   TopK top = new TopK(5);
+ *   ... top.offer(id, score) ...
+ *   top.sort();
+ *   for (int i = 0; i &lt; top.size(); i++) use(top.id(i), top.score(i));
+ * </pre>
+ */
+public class TopK {
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+    private boolean sorted;
+
+    public TopK(int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive: " + k);
+        ids = new int[k];
+        scores = new double[k];
+    }
+
+    public int capacity() { return ids.length; }
+
+    public int size() { return size; }
+
+    public boolean isFull() { return size == ids.length; }
+
+    /** Score of the kth best while full; a candidate scoring at or below it cannot get in. */
+    public double threshold() {
+        return isFull() ? scores[0] : Double.NEGATIVE_INFINITY;
+    }
+
+    /** Adds or improves id; returns false if it did not make the top k. */
+    public boolean offer(int id, double score) {
+        if (sorted) throw new IllegalStateException("sorted");
+        for (int i = 0; i < size; i++) {
+            if (ids[i] != id) continue;
+            if (score <= scores[i]) return false;
+            scores[i] = score;
+            siftDown(i);
+            return true;
+        }
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+        if (!better(id, score, ids[0], scores[0])) return false;
+        ids[0] = id;
+        scores[0] = score;
+        siftDown(0);
+        return true;
+    }
+
+    /** Orders the entries best first; no more offers after this. */
+    public void sort() {
+        if (sorted) return;
+        // heap sort: repeatedly move the worst to the end
+        for (int n = size - 1; n > 0; n--) {
+            swap(0, n);
+            siftDown(0, n);
+        }
+        sorted = true;
+    }
+
+    public int id(int i) { return ids[i]; }
+
+    public double score(int i) { return scores[i]; }
+
+    private static boolean better(int id, double score, int otherId, double otherScore) {
+        return score > otherScore || score == otherScore && id < otherId;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(ids[parent], scores[parent], ids[i], scores[i])) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        siftDown(i, size);
+    }
+
+    private void siftDown(int i, int n) {
+        while (true) {
+            int worst = i, l = 2 * i + 1, r = l + 1;
+            if (l < n && better(ids[worst], scores[worst], ids[l], scores[l])) worst = l;
+            if (r < n && better(ids[worst], scores[worst], ids[r], scores[r])) worst = r;
+            if (worst == i) return;
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a]; ids[a] = ids[b]; ids[b] = id;
+        double s = scores[a]; scores[a] = scores[b]; scores[b] = s;
+    }
+}
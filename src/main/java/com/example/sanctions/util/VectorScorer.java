@@ -0,0 +1,80 @@
+package com.example.sanctions.util;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Myers/Hyyro bit-parallel Levenshtein for one query against a batch of arena entries, one
+ * entry per lane of a LongVector (8 with AVX-512, 4 with AVX2). Each batch first transposes
+ * the entries' query-match masks into a column-major buffer, then advances every lane one
+ * character per step, and the batch stops once every lane has finished or already exceeds
+ * maxDistance.
+ * <p>
+ * Only loaded when jdk.incubator.vector is in the boot layer; see FuzzyMatcher#distances.
+ */
+final class VectorScorer {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    static final int LANES = SPECIES.length();
+    private static final ThreadLocal<long[]> COLUMNS = ThreadLocal.withInitial(() -> new long[64 * LANES]);
+
+    private VectorScorer() {}
+
+    /**
+     * out[i - from] = the distance of the query to ids[i], or maxDistance + 1 past it. The query
+     * is at most 64 chars and the arena ASCII; out may be ids itself.
+     */
+    static void distances(long[] peq, int m, NameArena names, int[] ids, int from, int to, int maxDistance,
+                          int[] out) {
+        byte[] data = names.data();
+        long[] lens = new long[LANES];
+        long[] cols = COLUMNS.get();
+        for (int base = from; base < to; base += LANES) {
+            int n = Math.min(LANES, to - base), maxLen = 0;
+            for (int l = 0; l < LANES; l++) {
+                int len = l < n ? names.length(ids[base + l]) : 0;
+                lens[l] = len;
+                maxLen = Math.max(maxLen, len);
+            }
+            if (cols.length < maxLen * LANES) COLUMNS.set(cols = new long[maxLen * LANES]);
+            for (int l = 0; l < n; l++) {
+                int off = names.offset(ids[base + l]), len = (int) lens[l];
+                for (int j = 0; j < len; j++) cols[j * LANES + l] = peq[data[off + j] & 0x7F];
+                for (int j = len; j < maxLen; j++) cols[j * LANES + l] = 0;
+            }
+            for (int l = n; l < LANES; l++) for (int j = 0; j < maxLen; j++) cols[j * LANES + l] = 0;
+            score(cols, m, lens, n, maxLen, maxDistance, out, base - from);
+        }
+    }
+
+    private static void score(long[] cols, int m, long[] lensArray, int n, int maxLen, int maxDistance,
+                              int[] out, int at) {
+        LongVector lens = LongVector.fromArray(SPECIES, lensArray, 0);
+        LongVector pv = LongVector.broadcast(SPECIES, -1L), mv = LongVector.zero(SPECIES);
+        LongVector one = LongVector.broadcast(SPECIES, 1L);
+        LongVector score = LongVector.broadcast(SPECIES, m), result = score;
+        for (int j = 0; j < maxLen; j++) {
+            LongVector eq = LongVector.fromArray(SPECIES, cols, j * LANES);
+            LongVector xv = eq.or(mv);
+            LongVector xh = eq.and(pv).add(pv).lanewise(VectorOperators.XOR, pv).or(eq);
+            LongVector ph = mv.or(xh.or(pv).not());
+            LongVector mh = pv.and(xh);
+            // +1 / -1 from the last row's horizontal delta; at most one of the two bits is set
+            score = score.add(ph.lanewise(VectorOperators.LSHR, m - 1).and(one))
+                    .sub(mh.lanewise(VectorOperators.LSHR, m - 1).and(one));
+            ph = ph.lanewise(VectorOperators.LSHL, 1).or(one);
+            mh = mh.lanewise(VectorOperators.LSHL, 1);
+            pv = mh.or(xv.or(ph).not());
+            mv = ph.and(xv);
+            // lanes past their entry's end keep running; their distance is captured at the end
+            result = result.blend(score, lens.compare(VectorOperators.EQ, j + 1));
+            if ((j & 7) == 7) {
+                // the bottom row moves by at most one per remaining column
+                LongVector bound = score.sub(lens.sub(j + 1)).blend(result, lens.compare(VectorOperators.LE, j + 1));
+                if (bound.compare(VectorOperators.LE, maxDistance).not().allTrue()) break;
+            }
+        }
+        result.min(maxDistance + 1).intoArray(lensArray, 0);
+        for (int l = 0; l < n; l++) out[at + l] = (int) lensArray[l];
+    }
+}